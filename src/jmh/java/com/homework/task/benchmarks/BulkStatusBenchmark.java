@@ -0,0 +1,81 @@
+package com.homework.task.benchmarks;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares changing the status of 10k tasks one statement at a time (what 10k `PUT /tasks/{id}` calls cost the database)
+ * with the batched and set-based statements behind `PUT /tasks/status`.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BulkStatusBenchmark {
+
+    private static final int TASKS = 10_000;
+    private static final int CHUNK_SIZE = 500;
+
+    private JdbcTemplate jdbcTemplate;
+    private final List<Long> ids = new ArrayList<>();
+    private boolean active;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:bulk-status;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate.update("INSERT INTO users (username, password, salt, role) VALUES ('user', 'password', 'salt', 'USER')");
+        jdbcTemplate.update("INSERT INTO tasks (name, description, status, user_id) " +
+                "SELECT 'Task ' || X, NULL, 'ACTIVE', 1 FROM SYSTEM_RANGE(1, " + TASKS + ")");
+        ids.addAll(jdbcTemplate.queryForList("SELECT id FROM tasks ORDER BY id", Long.class));
+    }
+
+    private String nextStatus() {
+        active = !active;
+        return active ? "INACTIVE" : "ACTIVE";
+    }
+
+    @Benchmark
+    public int singleUpdates() {
+        String sql = "UPDATE tasks SET status = ? WHERE id = ? AND user_id = ?";
+        String status = nextStatus();
+        int updated = 0;
+        for (Long id : ids) {
+            updated += jdbcTemplate.update(sql, status, id, 1L);
+        }
+        return updated;
+    }
+
+    @Benchmark
+    public int batchedUpdates() {
+        String sql = "UPDATE tasks SET status = ? WHERE id = ? AND user_id = ?";
+        String status = nextStatus();
+        int updated = 0;
+        for (int start = 0; start < ids.size(); start += CHUNK_SIZE) {
+            List<Object[]> batchArgs = new ArrayList<>(CHUNK_SIZE);
+            for (Long id : ids.subList(start, Math.min(ids.size(), start + CHUNK_SIZE))) {
+                batchArgs.add(new Object[]{status, id, 1L});
+            }
+            for (int count : jdbcTemplate.batchUpdate(sql, batchArgs)) {
+                updated += count;
+            }
+        }
+        return updated;
+    }
+
+    @Benchmark
+    public int setBasedUpdate() {
+        String sql = "UPDATE tasks SET status = ? WHERE user_id = ? AND status = ?";
+        String status = nextStatus();
+        return jdbcTemplate.update(sql, status, 1L, "ACTIVE".equals(status) ? "INACTIVE" : "ACTIVE");
+    }
+}
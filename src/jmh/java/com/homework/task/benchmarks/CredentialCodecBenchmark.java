@@ -0,0 +1,87 @@
+package com.homework.task.benchmarks;
+
+import com.homework.task.web.security.Hex;
+import com.homework.task.web.security.StoredCredential;
+import com.homework.task.web.security.hashers.Sha256PasswordHasher;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead around the password hash itself when a login is verified.
+ * The single-round SHA-256 hasher is used so the codec and digest lookups are not hidden behind a key derivation
+ * function. `legacy` reproduces the old path (colon-joined string, split, per-call `MessageDigest` lookup and
+ * `Integer.toHexString` hex codec), `structured` parses a `StoredCredential` and hashes with the cached digest.
+ * Allocation rates are reported by the `gc` profiler configured in `build.gradle`.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CredentialCodecBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    private final Sha256PasswordHasher hasher = new Sha256PasswordHasher();
+    private String saltColumn;
+    private String passwordColumn;
+    private String legacyPasswordColumn;
+
+    @Setup
+    public void setup() throws NoSuchAlgorithmException {
+        byte[] salt = new byte[16];
+        new SecureRandom().nextBytes(salt);
+        byte[] hash = hasher.hash(PASSWORD, salt, 1);
+        saltColumn = Hex.encode(salt);
+        passwordColumn = new StoredCredential(Sha256PasswordHasher.ID, 1, salt, hash).encodedHash();
+        legacyPasswordColumn = Base64.getEncoder().encodeToString(hash);
+    }
+
+    @Benchmark
+    public boolean legacy() throws NoSuchAlgorithmException {
+        String storedHash = saltColumn + ":" + legacyPasswordColumn;
+        String[] parts = storedHash.split(":");
+        byte[] salt = legacyHexToBytes(parts[0]);
+        byte[] storedHashedPassword = Base64.getDecoder().decode(parts[1]);
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        md.update(salt);
+        return MessageDigest.isEqual(md.digest(PASSWORD.getBytes()), storedHashedPassword);
+    }
+
+    @Benchmark
+    public boolean structured() throws NoSuchAlgorithmException {
+        StoredCredential credential = StoredCredential.parse(saltColumn, passwordColumn);
+        return MessageDigest.isEqual(hasher.hash(PASSWORD, credential.salt(), credential.cost()), credential.hash());
+    }
+
+    @Benchmark
+    public String legacyHexEncode() {
+        StringBuilder hexString = new StringBuilder();
+        for (byte b : Hex.decode(saltColumn)) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) {
+                hexString.append('0');
+            }
+            hexString.append(hex);
+        }
+        return hexString.toString();
+    }
+
+    @Benchmark
+    public String tableHexEncode() {
+        return Hex.encode(Hex.decode(saltColumn));
+    }
+
+    private static byte[] legacyHexToBytes(String hex) {
+        int len = hex.length();
+        byte[] data = new byte[len / 2];
+        for (int i = 0; i < len; i += 2) {
+            data[i / 2] = (byte) ((Character.digit(hex.charAt(i), 16) << 4)
+                    + Character.digit(hex.charAt(i+1), 16));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,67 @@
+package com.homework.task.benchmarks;
+
+import com.homework.task.web.security.jwt.JwtKeys;
+import com.homework.task.web.security.jwt.JwtUtility;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of verifying the bearer token of a single request.
+ * `legacyPerRequest` reproduces the old filter path (three parser builds and three signature checks),
+ * `singleParse` verifies once with a shared parser and `cachedVerify` goes through `JwtUtility.verifyToken`,
+ * which is what the filter does now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtVerificationBenchmark {
+
+    private final SecretKey key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    private JwtParser parser;
+    private String token;
+
+    private JwtUtility jwtUtility;
+    private String utilityToken;
+
+    @Setup
+    public void setup() {
+        parser = Jwts.parser().setSigningKey(key).build();
+        token = Jwts.builder()
+                .setSubject("user")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60))
+                .signWith(SignatureAlgorithm.HS256, key)
+                .compact();
+
+        jwtUtility = new JwtUtility(JwtKeys.ephemeral(), 1000 * 60 * 60, 10000);
+        utilityToken = jwtUtility.generateToken("user", 1, 0);
+    }
+
+    @Benchmark
+    public boolean legacyPerRequest() {
+        String username = Jwts.parser().setSigningKey(key).build().parseClaimsJws(token).getBody().getSubject();
+        String validatedUsername = Jwts.parser().setSigningKey(key).build().parseClaimsJws(token).getBody().getSubject();
+        Date expiration = Jwts.parser().setSigningKey(key).build().parseClaimsJws(token).getBody().getExpiration();
+        return username.equals(validatedUsername) && !expiration.before(new Date());
+    }
+
+    @Benchmark
+    public boolean singleParse() {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        return "user".equals(claims.getSubject()) && !claims.getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean cachedVerify() {
+        Claims claims = jwtUtility.verifyToken(utilityToken);
+        return "user".equals(claims.getSubject()) && !claims.getExpiration().before(new Date());
+    }
+}
@@ -0,0 +1,45 @@
+package com.homework.task.benchmarks;
+
+import com.homework.task.web.security.hashers.Pbkdf2PasswordHasher;
+import com.homework.task.web.security.hashers.Sha256PasswordHasher;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time it takes to hash one password for each PBKDF2 cost setting, next to the legacy single-round
+ * SHA-256 scheme. The result is roughly the CPU time one login costs, which together with the size of the password
+ * hashing executor bounds the login throughput of one instance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PasswordHashingBenchmark {
+
+    @Param({"100000", "310000", "600000"})
+    public int iterations;
+
+    private Pbkdf2PasswordHasher pbkdf2;
+    private Sha256PasswordHasher sha256;
+    private byte[] salt;
+
+    @Setup
+    public void setup() {
+        pbkdf2 = new Pbkdf2PasswordHasher(iterations);
+        sha256 = new Sha256PasswordHasher();
+        salt = new byte[16];
+        new SecureRandom().nextBytes(salt);
+    }
+
+    @Benchmark
+    public byte[] pbkdf2() throws NoSuchAlgorithmException {
+        return pbkdf2.hash("correct horse battery staple", salt, iterations);
+    }
+
+    @Benchmark
+    public byte[] legacySha256() throws NoSuchAlgorithmException {
+        return sha256.hash("correct horse battery staple", salt, 1);
+    }
+}
@@ -0,0 +1,111 @@
+package com.homework.task.benchmarks;
+
+import com.homework.task.database.services.mappers.TaskRowMapper;
+import com.homework.task.database.templates.Task;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares per-user task reads on a seeded dataset of 1M tasks owned by 10k users.
+ * `joined*` runs the old queries that join 'users' on the username, `byUserId*` resolves the user ID once and filters
+ * on 'tasks.user_id'. With `indexed=false` the per-user indexes from schema.sql are dropped to show the plan before
+ * the migration. The query plans are printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskQueryBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int TASKS = 1_000_000;
+
+    private static final String JOINED_BY_STATUS =
+            "SELECT * FROM tasks AS t LEFT JOIN users AS u ON t.user_id = u.id WHERE status = ? AND u.username = ?";
+    private static final String BY_USER_ID_AND_STATUS =
+            "SELECT id, name, description, status, version FROM tasks WHERE user_id = ? AND status = ? ORDER BY id";
+    private static final String JOINED_BY_ID =
+            "SELECT * FROM tasks AS t LEFT JOIN users AS u ON t.user_id = u.id WHERE t.id = ? AND u.username = ?";
+    private static final String BY_ID_AND_USER_ID =
+            "SELECT id, name, description, status, version FROM tasks WHERE id = ? AND user_id = ?";
+
+    @Param({"false", "true"})
+    private boolean indexed;
+
+    private JdbcTemplate jdbcTemplate;
+    private final TaskRowMapper rowMapper = new TaskRowMapper();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:benchmark-" + indexed + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        if (!indexed) {
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_tasks_user_status_id");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_tasks_user_id");
+        }
+
+        jdbcTemplate.update("INSERT INTO users (username, password, salt, role) " +
+                "SELECT 'user' || X, 'password', 'salt', 'USER' FROM SYSTEM_RANGE(1, " + USERS + ")");
+        jdbcTemplate.update("INSERT INTO tasks (name, description, status, user_id) " +
+                "SELECT 'Task ' || X, 'Description ' || X, CASE WHEN MOD(X, 2) = 0 THEN 'ACTIVE' ELSE 'INACTIVE' END, " +
+                "MOD(X, " + USERS + ") + 1 FROM SYSTEM_RANGE(1, " + TASKS + ")");
+        jdbcTemplate.execute("ANALYZE");
+
+        printPlan(JOINED_BY_STATUS, "ACTIVE", "user1");
+        printPlan(BY_USER_ID_AND_STATUS, 1L, "ACTIVE");
+    }
+
+    private void printPlan(String sql, Object... args) {
+        for (Map<String, Object> row : jdbcTemplate.queryForList("EXPLAIN " + sql, args)) {
+            System.out.println("[indexed=" + indexed + "] " + row.values());
+        }
+    }
+
+    private int nextUser() {
+        next = next % USERS + 1;
+        return next;
+    }
+
+    /**
+     * Task X is owned by user (X mod USERS) + 1, so task u - 1 belongs to user u (and task USERS to user 1).
+     */
+    private static long taskOwnedBy(int user) {
+        return user == 1 ? USERS : user - 1;
+    }
+
+    @Benchmark
+    public List<Task> joinedByStatus() {
+        return jdbcTemplate.query(JOINED_BY_STATUS, rowMapper, "ACTIVE", "user" + nextUser());
+    }
+
+    @Benchmark
+    public List<Task> byUserIdAndStatus() {
+        String sql = "SELECT id FROM users WHERE username = ?";
+        Long userId = jdbcTemplate.queryForObject(sql, Long.class, "user" + nextUser());
+        return jdbcTemplate.query(BY_USER_ID_AND_STATUS, rowMapper, userId, "ACTIVE");
+    }
+
+    @Benchmark
+    public List<Task> joinedById() {
+        int user = nextUser();
+        return jdbcTemplate.query(JOINED_BY_ID, rowMapper, taskOwnedBy(user), "user" + user);
+    }
+
+    @Benchmark
+    public List<Task> byIdAndUserId() {
+        int user = nextUser();
+        String sql = "SELECT id FROM users WHERE username = ?";
+        Long userId = jdbcTemplate.queryForObject(sql, Long.class, "user" + user);
+        return jdbcTemplate.query(BY_ID_AND_USER_ID, rowMapper, taskOwnedBy(user), userId);
+    }
+}
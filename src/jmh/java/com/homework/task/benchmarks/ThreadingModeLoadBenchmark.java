@@ -0,0 +1,84 @@
+package com.homework.task.benchmarks;
+
+import com.homework.task.BeeTaskApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the whole application with platform request threads, with virtual threads and on the reactive stack.
+ * The application is started on a random port, a user with 1000 tasks is seeded, and 256 concurrent clients page
+ * through the user's active tasks. The servlet modes block on JDBC for every request, the reactive mode serves the
+ * same endpoint from a few Netty event loop threads over R2DBC. JMH reports the throughput and, in sample mode, the
+ * latency percentiles including p99 for every mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(256)
+public class ThreadingModeLoadBenchmark {
+
+    private static final int TASKS = 1000;
+
+    @Param({"platform", "virtual", "reactive"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private String authorization;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, InterruptedException {
+        // Passed as arguments, default properties would be overridden by application.properties
+        context = new SpringApplicationBuilder(BeeTaskApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + mode.equals("virtual"),
+                        "--spring.main.web-application-type=" + (mode.equals("reactive") ? "reactive" : "servlet"),
+                        "--spring.datasource.url=jdbc:h2:mem:load-" + mode + ";DB_CLOSE_DELAY=-1",
+                        "--db.r2dbc.url=r2dbc:h2:mem:///load-" + mode + "?options=DB_CLOSE_DELAY=-1",
+                        "--security.login.rate-limit.client.capacity=100000");
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        String credentials = "{\"username\":\"load\",\"password\":\"load\"}";
+        send(post("/register", credentials));
+        authorization = "Bearer " + send(post("/login", credentials)).split(":")[1];
+        for (int i = 0; i < TASKS; i++) {
+            send(post("/tasks", "{\"name\":\"Task " + i + "\",\"description\":\"Load\",\"status\":\"ACTIVE\"}")
+                    .header("Authorization", authorization));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private HttpRequest.Builder post(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private String send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    @Benchmark
+    public int pageOfActiveTasks() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/tasks?status=ACTIVE&limit=50"))
+                .header("Authorization", authorization)
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
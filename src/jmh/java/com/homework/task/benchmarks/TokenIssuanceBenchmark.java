@@ -0,0 +1,48 @@
+package com.homework.task.benchmarks;
+
+import com.homework.task.web.security.jwt.JwtKeys;
+import com.homework.task.web.security.jwt.JwtUtility;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of issuing the token of one login.
+ * `legacyBuilder` signs with a fresh `Jwts.builder()` like the old login path did (twice per login),
+ * `generateToken` uses the precomputed header and the per-thread `Signature` instance of `JwtUtility`.
+ * Since tokens are signed with ES256 instead of HS256, the difference between both includes the cost of the
+ * asymmetric signature.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TokenIssuanceBenchmark {
+
+    private final SecretKey key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    private JwtUtility jwtUtility;
+
+    @Setup
+    public void setup() {
+        jwtUtility = new JwtUtility(JwtKeys.ephemeral(), 1000 * 60 * 60, 10000);
+    }
+
+    @Benchmark
+    public String legacyBuilder() {
+        return Jwts.builder()
+                .setSubject("user")
+                .setIssuedAt(new Date(System.currentTimeMillis()))
+                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60))
+                .signWith(SignatureAlgorithm.HS256, key)
+                .compact();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtility.generateToken("user", 1, 0);
+    }
+}
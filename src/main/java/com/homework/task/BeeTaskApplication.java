@@ -2,8 +2,12 @@ package com.homework.task;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// The reactive task API creates its own R2DBC pool (see ReactiveDatabaseConfig), so the schema stays with the data source
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
+@EnableScheduling
 public class BeeTaskApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,217 @@
+package com.homework.task.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+public class ExpiringCache<K, V> {
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * A cached value, or a placeholder with a null value while the value is being loaded.
+     * Entries are compared by identity, so a loader only replaces the very placeholder it installed.
+     */
+    private static final class Entry<V> {
+
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        V value() {
+            return value;
+        }
+
+        long expiresAt() {
+            return expiresAt;
+        }
+    }
+
+    /**
+     * Constructs a bounded cache whose entries expire after a fixed time to live.
+     * Once the cache holds `maxSize` entries, expired entries are purged first and, if that is not enough,
+     * a small batch of arbitrary entries is evicted so that inserts stay cheap even when the cache is full.
+     *
+     * @param maxSize - The maximum number of entries the cache may hold.
+     * @param ttlMillis - The default time to live of an entry in milliseconds.
+     */
+
+    public ExpiringCache(int maxSize, long ttlMillis) {
+        if (maxSize <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("Cache size and time to live must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Retrieves a value from the cache.
+     * Expired entries are removed on access and reported as a miss, as are values that are still being loaded.
+     *
+     * @param key - The key to look up.
+     * @return V - The cached value, or null if the key is absent or its entry has expired.
+     */
+
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || entry.value() == null && entry.expiresAt() > System.currentTimeMillis()) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt() <= System.currentTimeMillis()) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    /**
+     * Retrieves a value from the cache, loading and caching it on a miss.
+     * Null results of the loader are not cached, so missing values are looked up again on the next call. A placeholder
+     * is stored for the key while the loader runs and the loaded value only replaces that very placeholder. If the key
+     * is invalidated in the meantime, the placeholder is gone and the loaded value is returned but not cached, since it
+     * may predate the change that caused the invalidation. Invalidations of other keys do not affect the load.
+     *
+     * @param key - The key to look up.
+     * @param loader - The function used to load the value when it is not cached.
+     * @return V - The cached or freshly loaded value, or null if the loader returned null.
+     */
+
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+
+        Entry<V> placeholder = new Entry<>(null, System.currentTimeMillis() + ttlMillis);
+        store(key, placeholder);
+        try {
+            value = loader.apply(key);
+        } finally {
+            if (value == null) {
+                entries.remove(key, placeholder);
+            }
+        }
+        if (value != null) {
+            entries.replace(key, placeholder, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+        }
+        return value;
+    }
+
+    /**
+     * Stores a value using the default time to live of the cache.
+     *
+     * @param key - The key under which the value is stored.
+     * @param value - The value to store.
+     */
+
+    public void put(K key, V value) {
+        put(key, value, System.currentTimeMillis() + ttlMillis);
+    }
+
+    /**
+     * Stores a value that expires at the given point in time.
+     *
+     * @param key - The key under which the value is stored.
+     * @param value - The value to store.
+     * @param expiresAt - Epoch milliseconds after which the entry is no longer returned.
+     */
+
+    public void put(K key, V value, long expiresAt) {
+        store(key, new Entry<>(value, expiresAt));
+    }
+
+    private void store(K key, Entry<V> entry) {
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            makeRoom();
+        }
+        entries.put(key, entry);
+    }
+
+    /**
+     * Removes a single entry from the cache.
+     *
+     * @param key - The key of the entry to remove.
+     */
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes every entry whose key matches the given predicate.
+     *
+     * @param predicate - The condition that selects the keys to remove.
+     */
+
+    public void invalidateIf(Predicate<? super K> predicate) {
+        entries.keySet().removeIf(predicate);
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Frees space for a new entry.
+     * Expired entries are purged first; if the cache is still full afterwards, roughly one sixteenth of
+     * the entries is evicted in iteration order so the cost of a full scan is amortized over many inserts.
+     */
+
+    private void makeRoom() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().expiresAt() <= now) {
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+
+        int toEvict = entries.size() - maxSize + Math.max(1, maxSize / 16);
+        iterator = entries.entrySet().iterator();
+        while (toEvict > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+            toEvict--;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+}
@@ -0,0 +1,236 @@
+package com.homework.task.cache;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A compact map from positive `long` keys to `long` values.
+ * Keys and values live in two primitive arrays with open addressing and linear probing, so an entry costs 16 bytes
+ * (at the configured load factor roughly 32) instead of two boxed objects and a node. Reads are lock-free optimistic
+ * reads that only fall back to a read lock when they raced with a write; writes are serialized by a `StampedLock`.
+ */
+public class LongLongMap {
+
+    private static final long EMPTY = 0;
+
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * The current arrays. They are replaced together when the map grows, so a reader always sees a matching pair.
+     */
+    private Table table;
+    private int size;
+
+    private record Table(long[] keys, long[] values) {
+    }
+
+    /**
+     * Constructs a map that can hold the given number of entries before it has to grow.
+     *
+     * @param expectedSize - The number of entries the map is sized for.
+     */
+
+    public LongLongMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        this.table = new Table(new long[capacity], new long[capacity]);
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Retrieves the value of a key.
+     *
+     * @param key - The key to look up, must be positive.
+     * @param defaultValue - The value returned when the key is absent.
+     * @return long - The value of the key, or `defaultValue` if the key is absent.
+     */
+
+    public long get(long key, long defaultValue) {
+        long stamp = lock.tryOptimisticRead();
+        long value = find(table, key, defaultValue);
+        if (lock.validate(stamp)) {
+            return value;
+        }
+        stamp = lock.readLock();
+        try {
+            return find(table, key, defaultValue);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static long find(Table table, long key, long defaultValue) {
+        long[] keys = table.keys();
+        long[] values = table.values();
+        int mask = keys.length - 1;
+        int index = slot(key, mask);
+        // The probe is bounded because an optimistic read may observe the table while it is being changed
+        for (int probes = 0; probes < keys.length; probes++) {
+            long current = keys[index];
+            if (current == key) {
+                return values[index];
+            }
+            if (current == EMPTY) {
+                return defaultValue;
+            }
+            index = (index + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Stores the value of a key, replacing any previous value.
+     *
+     * @param key - The key, must be positive.
+     * @param value - The value to store.
+     */
+
+    public void put(long key, long value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Keys must be positive");
+        }
+        long stamp = lock.writeLock();
+        try {
+            if ((size + 1) * 2 > table.keys().length) {
+                grow();
+            }
+            long[] keys = table.keys();
+            long[] values = table.values();
+            int mask = keys.length - 1;
+            int index = slot(key, mask);
+            while (keys[index] != EMPTY && keys[index] != key) {
+                index = (index + 1) & mask;
+            }
+            if (keys[index] == EMPTY) {
+                size++;
+            }
+            // The value is written before the key, so a racing optimistic read never pairs the key with a stale value
+            values[index] = value;
+            keys[index] = key;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Stores the value of a key unless the key already holds a greater value.
+     * Values stored this way only ever grow, so a writer that read an older value cannot overwrite a newer one.
+     *
+     * @param key - The key, must be positive.
+     * @param value - The value to store.
+     * @return long - The value the key holds afterwards, i.e. the greater of the previous and the given value.
+     */
+
+    public long putMax(long key, long value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Keys must be positive");
+        }
+        long stamp = lock.writeLock();
+        try {
+            if ((size + 1) * 2 > table.keys().length) {
+                grow();
+            }
+            long[] keys = table.keys();
+            long[] values = table.values();
+            int mask = keys.length - 1;
+            int index = slot(key, mask);
+            while (keys[index] != EMPTY && keys[index] != key) {
+                index = (index + 1) & mask;
+            }
+            if (keys[index] == EMPTY) {
+                size++;
+            } else if (values[index] >= value) {
+                return values[index];
+            }
+            values[index] = value;
+            keys[index] = key;
+            return value;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a key.
+     * Following entries of the probe sequence are shifted back, so no tombstones are left behind.
+     *
+     * @param key - The key to remove.
+     */
+
+    public void remove(long key) {
+        long stamp = lock.writeLock();
+        try {
+            long[] keys = table.keys();
+            long[] values = table.values();
+            int mask = keys.length - 1;
+            int index = slot(key, mask);
+            while (keys[index] != key) {
+                if (keys[index] == EMPTY) {
+                    return;
+                }
+                index = (index + 1) & mask;
+            }
+            int next = (index + 1) & mask;
+            while (keys[next] != EMPTY) {
+                int home = slot(keys[next], mask);
+                // Move the entry into the gap unless its home slot lies cyclically in (index, next]
+                if (((next - home) & mask) >= ((next - index) & mask)) {
+                    keys[index] = keys[next];
+                    values[index] = values[next];
+                    index = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[index] = EMPTY;
+            values[index] = 0;
+            size--;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            int capacity = table.keys().length;
+            table = new Table(new long[capacity], new long[capacity]);
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = table.keys();
+        long[] oldValues = table.values();
+        long[] newKeys = new long[oldKeys.length * 2];
+        long[] newValues = new long[oldValues.length * 2];
+        int mask = newKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = slot(oldKeys[i], mask);
+                while (newKeys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                newKeys[index] = oldKeys[i];
+                newValues[index] = oldValues[i];
+            }
+        }
+        table = new Table(newKeys, newValues);
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
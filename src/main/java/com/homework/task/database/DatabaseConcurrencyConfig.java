@@ -0,0 +1,40 @@
+package com.homework.task.database;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class DatabaseConcurrencyConfig {
+
+    /**
+     * Wraps the data source in a `ConcurrencyLimitedDataSource` when requests run on virtual threads.
+     * The limit defaults to the size of the Hikari pool, so at most as many threads compete for connections as
+     * there are connections; everybody else waits on the semaphore.
+     *
+     * @param environment - The environment the limits are read from.
+     * @return BeanPostProcessor - The post processor that wraps the data source.
+     */
+
+    @Bean
+    public static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitedDataSource)) {
+                    int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                    int maxConcurrency = environment.getProperty("db.concurrency-limit.max-concurrency", Integer.class, poolSize);
+                    long acquireTimeoutMillis = environment.getProperty("db.concurrency-limit.acquire-timeout-ms", Long.class, 30000L);
+                    return new ConcurrencyLimitedDataSource(dataSource, maxConcurrency, acquireTimeoutMillis);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package com.homework.task.database;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDatabaseConfig {
+
+    /**
+     * The R2DBC connection pool used by the reactive task API.
+     * The pool is deliberately not exposed as a `ConnectionFactory` bean: users, tokens and the schema are still
+     * handled through the JDBC data source, and Boot would otherwise initialize the schema through R2DBC instead.
+     * Both point at the same in-memory database.
+     */
+    private final ConnectionPool connectionPool;
+
+    /**
+     * Constructs a ReactiveDatabaseConfig and opens the connection pool.
+     *
+     * @param url - The R2DBC URL of the database, which must name the same database as `spring.datasource.url`.
+     * @param username - The database user.
+     * @param password - The password of the database user.
+     * @param maxSize - The maximum number of pooled connections.
+     */
+
+    public ReactiveDatabaseConfig(@Value("${db.r2dbc.url:r2dbc:h2:mem:///testdb?options=DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE}") String url,
+                                  @Value("${spring.datasource.username:sa}") String username,
+                                  @Value("${spring.datasource.password:}") String password,
+                                  @Value("${db.r2dbc.pool.max-size:10}") int maxSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .maxSize(maxSize)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient() {
+        return DatabaseClient.create(connectionPool);
+    }
+
+    /**
+     * Creates the operator that runs reactive pipelines in an R2DBC transaction.
+     * Only the operator is a bean, so the JDBC transaction manager used by the servlet stack is not replaced.
+     *
+     * @return TransactionalOperator - The transactional operator backed by the connection pool.
+     */
+
+    @Bean
+    public TransactionalOperator transactionalOperator() {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionPool));
+    }
+
+    @PreDestroy
+    public void close() {
+        connectionPool.dispose();
+    }
+}
@@ -0,0 +1,417 @@
+package com.homework.task.database.repositories;
+
+import com.homework.task.database.services.mappers.TaskR2dbcMapper;
+import com.homework.task.database.templates.Task;
+import com.homework.task.database.templates.UpdateResult;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTaskRepository {
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private static final String TASK_COLUMNS = "id, name, description, status, version";
+
+    private static final TaskR2dbcMapper TASK_MAPPER = new TaskR2dbcMapper();
+
+    /**
+     * Saves a new task into the database.
+     * This is the R2DBC counterpart of `TaskRepository.saveTask`. The user ID is taken from the verified token, so
+     * no lookup of the 'users' table is needed. Tasks without a name or status are not saved. The version is reserved
+     * with `reserveVersions`, so the returned Mono must run within a transaction.
+     *
+     * @param task - The task object containing the task details (name, description, status).
+     * @param userId - The ID of the user to whom the task is assigned.
+     * @return Mono<Task> - The saved task including its generated ID and version, or an empty Mono if the task was not saved.
+     */
+    public Mono<Task> saveTask(Task task, long userId) {
+        String sql = "INSERT INTO tasks (name, description, status, user_id, version, updated_at) " +
+                "VALUES (:name, :description, :status, :userId, :version, CURRENT_TIMESTAMP)";
+        if (task.getName() == null || task.getName().isEmpty() || task.getStatus() == null) {
+            return Mono.empty();
+        }
+
+        return reserveVersions(userId, 1).flatMap(version -> {
+            DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
+                    .bind("name", task.getName())
+                    .bind("status", task.getStatus().name())
+                    .bind("userId", userId)
+                    .bind("version", version);
+            return bindNullable(spec, "description", task.getDescription())
+                    .filter(statement -> statement.returnGeneratedValues("id"))
+                    .map(row -> new Task(row.get("id", Long.class), task.getName(), task.getDescription(), task.getStatus(),
+                            version))
+                    .one();
+        });
+    }
+
+    /**
+     * Saves several tasks with a single batched statement.
+     * The tasks are expected to be validated by the caller. One consecutive range of versions is reserved for the whole
+     * batch, so the returned Mono must run within a transaction.
+     *
+     * @param tasks - The tasks to save.
+     * @param userId - The ID of the user to whom the tasks are assigned.
+     * @return Mono<List<Task>> - The saved tasks including their generated IDs and versions in the order of the tasks.
+     */
+    public Mono<List<Task>> saveTasks(List<Task> tasks, long userId) {
+        String sql = "INSERT INTO tasks (name, description, status, user_id, version, updated_at) " +
+                "VALUES ($1, $2, $3, $4, $5, CURRENT_TIMESTAMP)";
+        return reserveVersions(userId, tasks.size()).flatMapMany(lastVersion -> databaseClient.inConnectionMany(connection -> {
+            long firstVersion = lastVersion - tasks.size() + 1;
+            Statement statement = connection.createStatement(sql).returnGeneratedValues("id");
+            for (int i = 0; i < tasks.size(); i++) {
+                Task task = tasks.get(i);
+                if (i > 0) {
+                    statement.add();
+                }
+                statement.bind(0, task.getName());
+                if (task.getDescription() == null) {
+                    statement.bindNull(1, String.class);
+                } else {
+                    statement.bind(1, task.getDescription());
+                }
+                statement.bind(2, task.getStatus().name());
+                statement.bind(3, userId);
+                statement.bind(4, firstVersion + i);
+            }
+            return Flux.from(statement.execute())
+                    .concatMap(result -> result.map((row, metadata) -> row.get("id", Long.class)))
+                    .index((i, id) -> {
+                        Task task = tasks.get(i.intValue());
+                        return new Task(id, task.getName(), task.getDescription(), task.getStatus(), firstVersion + i);
+                    });
+        })).collectList();
+    }
+
+    /**
+     * Updates an existing task in the database.
+     * As with `TaskRepository.updateTask`, the ownership and version checks are part of the UPDATE statement itself,
+     * and on success the new version is set on the given task. The version is reserved with `reserveVersions` and
+     * handed back if the update misses, so the returned Mono must run within a transaction.
+     *
+     * @param id - The ID of the task to update.
+     * @param task - The task object containing the new values for the task to be updated.
+     * @param userId - The ID of the user who must own the task.
+     * @param expectedVersion - The version the task must currently have, or null to update it regardless of its version.
+     * @return Mono<UpdateResult> - UPDATED if the task was updated, INVALID if the name or status is missing,
+     *                              NOT_FOUND if there is no such task, FORBIDDEN if it belongs to another user and
+     *                              PRECONDITION_FAILED if it does not have the expected version.
+     */
+    public Mono<UpdateResult> updateTask(long id, Task task, long userId, Long expectedVersion) {
+        String sql = "UPDATE tasks SET name = :name, description = :description, status = :status, " +
+                "version = :version, updated_at = CURRENT_TIMESTAMP WHERE id = :id AND user_id = :userId" +
+                (expectedVersion == null ? "" : " AND version = :expectedVersion");
+        if (task.getName() == null || task.getName().isEmpty() || task.getStatus() == null) {
+            return Mono.just(UpdateResult.INVALID);
+        }
+
+        return reserveVersions(userId, 1).flatMap(version -> {
+            DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
+                    .bind("name", task.getName())
+                    .bind("status", task.getStatus().name())
+                    .bind("version", version)
+                    .bind("id", id)
+                    .bind("userId", userId);
+            if (expectedVersion != null) {
+                spec = spec.bind("expectedVersion", expectedVersion);
+            }
+            return bindNullable(spec, "description", task.getDescription())
+                    .fetch()
+                    .rowsUpdated()
+                    .flatMap(count -> {
+                        if (count > 0) {
+                            task.setVersion(version);
+                            return Mono.just(UpdateResult.UPDATED);
+                        }
+                        return adjustVersionCounter(userId, -1).then(explainMissedUpdate(id, userId, expectedVersion));
+                    });
+        }).switchIfEmpty(Mono.defer(() -> explainMissedUpdate(id, userId, expectedVersion)));
+    }
+
+    /**
+     * Partially updates an existing task in the database.
+     * Only the fields that are present (non-null) in the provided task are changed. The expected version works as for
+     * `updateTask`. An empty name is rejected.
+     *
+     * @param id - The ID of the task to update.
+     * @param patch - The task object containing the fields to change.
+     * @param userId - The ID of the user who must own the task.
+     * @param expectedVersion - The version the task must currently have, or null to update it regardless of its version.
+     * @return Mono<UpdateResult> - UPDATED if the task was updated, INVALID if the name is empty,
+     *                              NOT_FOUND if there is no such task, FORBIDDEN if it belongs to another user and
+     *                              PRECONDITION_FAILED if it does not have the expected version.
+     */
+    public Mono<UpdateResult> patchTask(long id, Task patch, long userId, Long expectedVersion) {
+        String sql = "UPDATE tasks SET name = COALESCE(:name, name), description = COALESCE(:description, description), " +
+                "status = COALESCE(:status, status), version = :version, updated_at = CURRENT_TIMESTAMP " +
+                "WHERE id = :id AND user_id = :userId" + (expectedVersion == null ? "" : " AND version = :expectedVersion");
+        if (patch.getName() != null && patch.getName().isEmpty()) {
+            return Mono.just(UpdateResult.INVALID);
+        }
+
+        String status = patch.getStatus() == null ? null : patch.getStatus().name();
+        return reserveVersions(userId, 1).flatMap(version -> {
+            DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
+                    .bind("version", version)
+                    .bind("id", id)
+                    .bind("userId", userId);
+            if (expectedVersion != null) {
+                spec = spec.bind("expectedVersion", expectedVersion);
+            }
+            spec = bindNullable(spec, "name", patch.getName());
+            spec = bindNullable(spec, "description", patch.getDescription());
+            return bindNullable(spec, "status", status)
+                    .fetch()
+                    .rowsUpdated()
+                    .flatMap(count -> {
+                        if (count > 0) {
+                            patch.setVersion(version);
+                            return Mono.just(UpdateResult.UPDATED);
+                        }
+                        return adjustVersionCounter(userId, -1).then(explainMissedUpdate(id, userId, expectedVersion));
+                    });
+        }).switchIfEmpty(Mono.defer(() -> explainMissedUpdate(id, userId, expectedVersion)));
+    }
+
+    /**
+     * Changes the status of the given tasks with a single batched statement.
+     * Every binding of the batch checks ownership itself, and the per-binding update counts tell which IDs were changed.
+     * As in `TaskRepository.updateStatus`, every ID gets its own version from one reserved range, so the returned Mono
+     * must run within a transaction.
+     *
+     * @param ids - The IDs of the tasks to change.
+     * @param status - The new status of the tasks.
+     * @param userId - The ID of the user who must own the tasks.
+     * @return Mono<List<Long>> - The IDs that were not changed because they do not exist or belong to another user.
+     */
+    public Mono<List<Long>> updateStatus(List<Long> ids, Task.Status status, long userId) {
+        String sql = "UPDATE tasks SET status = $1, version = $2, updated_at = CURRENT_TIMESTAMP " +
+                "WHERE id = $3 AND user_id = $4";
+        return reserveVersions(userId, ids.size()).flatMapMany(lastVersion -> databaseClient.inConnectionMany(connection -> {
+            long firstVersion = lastVersion - ids.size() + 1;
+            Statement statement = connection.createStatement(sql);
+            for (int i = 0; i < ids.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                statement.bind(0, status.name()).bind(1, firstVersion + i).bind(2, ids.get(i)).bind(3, userId);
+            }
+            return Flux.from(statement.execute()).concatMap(Result::getRowsUpdated);
+        })).collectList().map(counts -> {
+            List<Long> notUpdated = new ArrayList<>();
+            for (int i = 0; i < counts.size(); i++) {
+                if (counts.get(i) == 0) {
+                    notUpdated.add(ids.get(i));
+                }
+            }
+            return notUpdated;
+        });
+    }
+
+    /**
+     * Changes the status of all tasks of a user that currently have a given status with one set-based UPDATE statement.
+     * The versions are assigned as in `TaskRepository.updateStatusWhere`, so the returned Mono must run within a
+     * transaction.
+     *
+     * @param currentStatus - The status the tasks must currently have.
+     * @param status - The new status of the tasks.
+     * @param userId - The ID of the user whose tasks are changed.
+     * @return Mono<Long> - The number of changed tasks.
+     */
+    public Mono<Long> updateStatusWhere(Task.Status currentStatus, Task.Status status, long userId) {
+        String sql = "UPDATE tasks SET status = :status, version = :version + ROWNUM(), updated_at = CURRENT_TIMESTAMP " +
+                "WHERE user_id = :userId AND status = :currentStatus";
+        return reserveVersions(userId, 1).flatMap(version -> databaseClient.sql(sql)
+                .bind("status", status.name())
+                .bind("version", version - 1)
+                .bind("userId", userId)
+                .bind("currentStatus", currentStatus.name())
+                .fetch()
+                .rowsUpdated()
+                .flatMap(updated -> updated == 1
+                        ? Mono.just(updated)
+                        : adjustVersionCounter(userId, updated - 1).thenReturn(updated)))
+                .defaultIfEmpty(0L);
+    }
+
+    /**
+     * Determines why a conditional update did not change any rows.
+     *
+     * @param id - The ID of the task that was not updated.
+     * @return Mono<UpdateResult> - FORBIDDEN if the task exists (and therefore belongs to another user), NOT_FOUND otherwise.
+     */
+    private Mono<UpdateResult> explainMissedUpdate(long id) {
+        String sql = "SELECT COUNT(*) AS tasks FROM tasks WHERE id = :id";
+        return databaseClient.sql(sql)
+                .bind("id", id)
+                .map(row -> row.get("tasks", Long.class))
+                .one()
+                .map(count -> count > 0 ? UpdateResult.FORBIDDEN : UpdateResult.NOT_FOUND);
+    }
+
+    /**
+     * Determines why a version-checked update did not change any rows.
+     *
+     * @param id - The ID of the task that was not updated.
+     * @param userId - The ID of the user who must own the task.
+     * @param expectedVersion - The version the task had to have, or null if the update did not check it.
+     * @return Mono<UpdateResult> - PRECONDITION_FAILED if the user owns the task (so only the version differed),
+     *                              otherwise the same as `explainMissedUpdate(long)`.
+     */
+    private Mono<UpdateResult> explainMissedUpdate(long id, long userId, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return explainMissedUpdate(id);
+        }
+        String sql = "SELECT COUNT(*) AS tasks FROM tasks WHERE id = :id AND user_id = :userId";
+        return databaseClient.sql(sql)
+                .bind("id", id)
+                .bind("userId", userId)
+                .map(row -> row.get("tasks", Long.class))
+                .one()
+                .flatMap(count -> count > 0 ? Mono.just(UpdateResult.PRECONDITION_FAILED) : explainMissedUpdate(id));
+    }
+
+    /**
+     * Reserves versions for writes to the tasks of a user.
+     * This is the R2DBC counterpart of `TaskRepository.reserveVersions`: raising the counter locks the user's row
+     * until the transaction ends, so one user's versions become visible in order.
+     *
+     * @param userId - The ID of the user whose tasks are written.
+     * @param count - The number of versions to reserve.
+     * @return Mono<Long> - The highest reserved version, or an empty Mono if the user does not exist.
+     */
+    private Mono<Long> reserveVersions(long userId, int count) {
+        String sql = "SELECT task_version FROM FINAL TABLE " +
+                "(UPDATE users SET task_version = task_version + :count WHERE id = :userId)";
+        return databaseClient.sql(sql)
+                .bind("count", count)
+                .bind("userId", userId)
+                .map(row -> row.get("task_version", Long.class))
+                .one();
+    }
+
+    /**
+     * Moves the version counter of a user whose row is already locked by `reserveVersions`.
+     *
+     * @param userId - The ID of the user.
+     * @param delta - The amount to add to the counter.
+     * @return Mono<Void> - Completes when the counter was moved.
+     */
+    private Mono<Void> adjustVersionCounter(long userId, long delta) {
+        String sql = "UPDATE users SET task_version = task_version + :delta WHERE id = :userId";
+        return databaseClient.sql(sql)
+                .bind("delta", delta)
+                .bind("userId", userId)
+                .then();
+    }
+
+    /**
+     * Finds a task of a user by its ID.
+     *
+     * @param id - The ID of the task to retrieve.
+     * @param userId - The ID of the user associated with the task.
+     * @return Mono<Task> - The task, or an empty Mono if no task matches the given ID and user.
+     */
+    public Mono<Task> findById(long id, long userId) {
+        String sql = "SELECT " + TASK_COLUMNS + " FROM tasks WHERE id = :id AND user_id = :userId";
+        return databaseClient.sql(sql)
+                .bind("id", id)
+                .bind("userId", userId)
+                .map(TASK_MAPPER)
+                .one();
+    }
+
+    /**
+     * Retrieves the tasks of a user with a given status, ordered by ID.
+     * Rows are emitted as they are read, so the caller can write them out without collecting them first.
+     *
+     * @param status - The status of the tasks to be retrieved.
+     * @param userId - The ID of the user associated with the tasks.
+     * @param afterId - Only tasks with an ID greater than this one are returned.
+     * @return Flux<Task> - The matching tasks ordered by ID.
+     */
+    public Flux<Task> findByStatus(Task.Status status, long userId, long afterId) {
+        String sql = "SELECT " + TASK_COLUMNS + " FROM tasks WHERE user_id = :userId AND status = :status AND id > :afterId ORDER BY id";
+        return databaseClient.sql(sql)
+                .bind("userId", userId)
+                .bind("status", status.name())
+                .bind("afterId", afterId)
+                .map(TASK_MAPPER)
+                .all();
+    }
+
+    /**
+     * Retrieves one page of tasks of a user with a given status using keyset pagination on the task ID.
+     *
+     * @param status - The status of the tasks to be retrieved.
+     * @param userId - The ID of the user associated with the tasks.
+     * @param afterId - Only tasks with an ID greater than this one are returned.
+     * @param limit - The maximum number of tasks to return.
+     * @return Flux<Task> - At most `limit` tasks ordered by ID.
+     */
+    public Flux<Task> findByStatus(Task.Status status, long userId, long afterId, int limit) {
+        String sql = "SELECT " + TASK_COLUMNS + " FROM tasks WHERE user_id = :userId AND status = :status AND id > :afterId " +
+                "ORDER BY id LIMIT :limit";
+        return databaseClient.sql(sql)
+                .bind("userId", userId)
+                .bind("status", status.name())
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(TASK_MAPPER)
+                .all();
+    }
+
+    /**
+     * Retrieves the tasks of a user that changed after a given version.
+     * This is the R2DBC counterpart of `TaskRepository.findChangedSince`.
+     *
+     * @param userId - The ID of the user associated with the tasks.
+     * @param sinceVersion - Only tasks with a version greater than this one are returned.
+     * @param limit - The maximum number of tasks to return.
+     * @return Flux<Task> - At most `limit` tasks ordered by version.
+     */
+    public Flux<Task> findChangedSince(long userId, long sinceVersion, int limit) {
+        String sql = "SELECT " + TASK_COLUMNS + " FROM tasks WHERE user_id = :userId AND version > :sinceVersion " +
+                "ORDER BY version LIMIT :limit";
+        return databaseClient.sql(sql)
+                .bind("userId", userId)
+                .bind("sinceVersion", sinceVersion)
+                .bind("limit", limit)
+                .map(TASK_MAPPER)
+                .all();
+    }
+
+    /**
+     * Retrieves the latest task version of a user.
+     * This is the R2DBC counterpart of `TaskRepository.findLatestVersion`.
+     *
+     * @param userId - The ID of the user associated with the tasks.
+     * @return Mono<Long> - The latest version, or 0 if the user has no tasks or does not exist.
+     */
+    public Mono<Long> findLatestVersion(long userId) {
+        String sql = "SELECT task_version FROM users WHERE id = :userId";
+        return databaseClient.sql(sql)
+                .bind("userId", userId)
+                .map(row -> row.get("task_version", Long.class))
+                .one()
+                .defaultIfEmpty(0L);
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name, String value) {
+        return value == null ? spec.bindNull(name, String.class) : spec.bind(name, value);
+    }
+
+}
@@ -1,13 +1,25 @@
 package com.homework.task.database.repositories;
 
 import com.homework.task.database.templates.Task;
+import com.homework.task.database.templates.UpdateResult;
 import com.homework.task.database.services.mappers.TaskRowMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
 public class TaskRepository {
@@ -15,55 +27,327 @@ public class TaskRepository {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private UserIdResolver userIdResolver;
+
+    @Value("${tasks.stream.fetch-size:500}")
+    private int streamFetchSize;
+
+    private static final String TASK_COLUMNS = "id, name, description, status, version";
+
     /**
      * Saves a new task into the database.
-     * This method first retrieves the user ID from the 'users' table based on the provided username.
+     * This method first resolves the user ID based on the provided username.
      * It then checks if the task name and status are provided. If so, it inserts a new task into the 'tasks' table
-     * with the provided name, description, status, and the user's ID. If the task name or status is missing,
-     * the task will not be saved, and the method will return false.
+     * with the provided name, description, status, and the user's ID, and captures the ID generated by the database.
+     * If the task name or status is missing, the task will not be saved, and the method will return null.
+     * Tasks of unknown users are not saved either. The version of the new task is reserved with `reserveVersions`,
+     * so this method must run within a transaction.
      *
      * @param task - The task object containing the task details (name, description, status).
      * @param username - The username of the user to whom the task is assigned.
-     * @return boolean - True if any rows were affected, False if no rows were changed.
+     * @return task - The saved task including its generated ID and version, or null if the task was not saved.
      */
-    public boolean saveTask(Task task, String username) {
-        String sql = "INSERT INTO tasks (name, description, status, user_id) VALUES (?, ?, ?, ?)";
-        String slq2 = "SELECT id FROM users WHERE username = ?";
-
-        long id = jdbcTemplate.queryForObject(slq2, long.class, username);
+    public Task saveTask(Task task, String username) {
+        String sql = "INSERT INTO tasks (name, description, status, user_id, version, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP)";
 
         if (task.getName() != null && !task.getName().isEmpty() && task.getStatus() != null) {
-            return 0 < jdbcTemplate.update(sql, task.getName(), task.getDescription(), task.getStatus().name(), id);
+            Long userId = userIdResolver.resolve(username);
+            if (userId == null) {
+                return null;
+            }
+            Long version = reserveVersions(userId, 1);
+            if (version == null) {
+                return null;
+            }
+
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql, new String[]{"id"});
+                statement.setString(1, task.getName());
+                statement.setString(2, task.getDescription());
+                statement.setString(3, task.getStatus().name());
+                statement.setLong(4, userId);
+                statement.setLong(5, version);
+                return statement;
+            }, keyHolder);
+
+            Number id = keyHolder.getKey();
+            if (id == null) {
+                return null;
+            }
+            return new Task(id.longValue(), task.getName(), task.getDescription(), task.getStatus(), version);
         } else {
-            return false;
+            return null;
         }
 
     }
 
+    /**
+     * Saves several tasks into the database with a single JDBC batch.
+     * All tasks are inserted for the user with the provided username in one round trip, and the saved tasks with the
+     * IDs generated by the database and their versions are returned in the same order. The tasks are expected to be
+     * validated by the caller. One consecutive range of versions is reserved for the whole batch, so this method must
+     * run within a transaction.
+     *
+     * @param tasks - The tasks to save.
+     * @param username - The username of the user to whom the tasks are assigned.
+     * @return list<task> - The saved tasks in the order of the given tasks, or null if the user does not exist.
+     */
+    public List<Task> saveTasks(List<Task> tasks, String username) {
+        String sql = "INSERT INTO tasks (name, description, status, user_id, version, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP)";
+        Long userId = userIdResolver.resolve(username);
+        if (userId == null) {
+            return null;
+        }
+        Long lastVersion = reserveVersions(userId, tasks.size());
+        if (lastVersion == null) {
+            return null;
+        }
+        long firstVersion = lastVersion - tasks.size() + 1;
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(sql, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        Task task = tasks.get(i);
+                        statement.setString(1, task.getName());
+                        statement.setString(2, task.getDescription());
+                        statement.setString(3, task.getStatus().name());
+                        statement.setLong(4, userId);
+                        statement.setLong(5, firstVersion + i);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return tasks.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keyList = keyHolder.getKeyList();
+        List<Task> saved = new ArrayList<>(tasks.size());
+        for (int i = 0; i < keyList.size(); i++) {
+            Task task = tasks.get(i);
+            Map<String, Object> keys = keyList.get(i);
+            saved.add(new Task(((Number) keys.get("id")).longValue(), task.getName(), task.getDescription(), task.getStatus(),
+                    firstVersion + i));
+        }
+        return saved;
+    }
+
     /**
      * Updates an existing task in the database.
      * This method updates the task in the 'tasks' table based on the provided task ID. It modifies the task's name, description,
-     * and status if the task name and status are provided (non-null and non-empty). If the provided task name or status is missing,
-     * the task will not be updated, and the method will return false. Otherwise, it returns true if the update is successful.
+     * and status if the task name and status are provided (non-null and non-empty). The ownership check is part of the
+     * same UPDATE statement, so the task is never read before it is written. If the provided task name or status is missing,
+     * the task will not be updated. The new version is reserved with `reserveVersions` and handed back if the update
+     * misses, so this method must run within a transaction. If the task was updated, the version is stored in the given
+     * task object, so callers can report it without reading the task back.
+     * If an expected version is given, the task is only updated while it still has that version, which is checked by
+     * the same UPDATE statement, so concurrent writers cannot overwrite each other's changes unnoticed.
      *
      * @param id - The ID of the task to update.
      * @param task - The task object containing the new values for the task to be updated.
-     * @return boolean - True if the task is updated successfully; false if the task is not updated due to missing name or status.
+     * @param username - The username of the user who must own the task.
+     * @param expectedVersion - The version the task must currently have, or null to update it regardless of its version.
+     * @return UpdateResult - UPDATED if the task was updated, INVALID if the name or status is missing,
+     *                        NOT_FOUND if there is no such task, FORBIDDEN if it belongs to another user and
+     *                        PRECONDITION_FAILED if it does not have the expected version.
      */
-    public boolean updateTask(long id, Task task) {
-        String sql = "UPDATE tasks SET name = ?, description = ?, status = ? WHERE id = ?";
-        if (task.getName() != null && !task.getName().isEmpty() && task.getStatus() != null) {
-            return 0 < jdbcTemplate.update(sql, task.getName(), task.getDescription(), task.getStatus().name(), id);
-        } else {
-            return false;
+    public UpdateResult updateTask(long id, Task task, String username, Long expectedVersion) {
+        String sql = "UPDATE tasks SET name = ?, description = ?, status = ?, version = ?, updated_at = CURRENT_TIMESTAMP " +
+                "WHERE id = ? AND user_id = ?" + (expectedVersion == null ? "" : " AND version = ?");
+        if (task.getName() == null || task.getName().isEmpty() || task.getStatus() == null) {
+            return UpdateResult.INVALID;
+        }
+
+        Long userId = userIdResolver.resolve(username);
+        Long version = userId == null ? null : reserveVersions(userId, 1);
+        if (version != null) {
+            Object[] args = expectedVersion == null
+                    ? new Object[]{task.getName(), task.getDescription(), task.getStatus().name(), version, id, userId}
+                    : new Object[]{task.getName(), task.getDescription(), task.getStatus().name(), version, id, userId, expectedVersion};
+            if (0 < jdbcTemplate.update(sql, args)) {
+                task.setVersion(version);
+                return UpdateResult.UPDATED;
+            }
+            adjustVersionCounter(userId, -1);
+        }
+        return explainMissedUpdate(id, userId, expectedVersion);
+    }
+
+    /**
+     * Partially updates an existing task in the database.
+     * Only the fields that are present (non-null) in the provided task are changed, the others keep their current values.
+     * As with `updateTask`, ownership is checked within the UPDATE statement itself and the new version is stored in
+     * the given patch object. The expected version works as for `updateTask`. An empty name is rejected.
+     *
+     * @param id - The ID of the task to update.
+     * @param patch - The task object containing the fields to change.
+     * @param username - The username of the user who must own the task.
+     * @param expectedVersion - The version the task must currently have, or null to update it regardless of its version.
+     * @return UpdateResult - UPDATED if the task was updated, INVALID if the name is empty,
+     *                        NOT_FOUND if there is no such task, FORBIDDEN if it belongs to another user and
+     *                        PRECONDITION_FAILED if it does not have the expected version.
+     */
+    public UpdateResult patchTask(long id, Task patch, String username, Long expectedVersion) {
+        String sql = "UPDATE tasks SET name = COALESCE(?, name), description = COALESCE(?, description), " +
+                "status = COALESCE(?, status), version = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ? AND user_id = ?" +
+                (expectedVersion == null ? "" : " AND version = ?");
+        if (patch.getName() != null && patch.getName().isEmpty()) {
+            return UpdateResult.INVALID;
+        }
+
+        String status = patch.getStatus() == null ? null : patch.getStatus().name();
+        Long userId = userIdResolver.resolve(username);
+        Long version = userId == null ? null : reserveVersions(userId, 1);
+        if (version != null) {
+            Object[] args = expectedVersion == null
+                    ? new Object[]{patch.getName(), patch.getDescription(), status, version, id, userId}
+                    : new Object[]{patch.getName(), patch.getDescription(), status, version, id, userId, expectedVersion};
+            if (0 < jdbcTemplate.update(sql, args)) {
+                patch.setVersion(version);
+                return UpdateResult.UPDATED;
+            }
+            adjustVersionCounter(userId, -1);
+        }
+        return explainMissedUpdate(id, userId, expectedVersion);
+    }
+
+    /**
+     * Changes the status of the given tasks in one JDBC batch.
+     * Every statement of the batch checks ownership itself, so tasks of other users are never touched, and the
+     * per-statement update counts tell which IDs were changed. Every ID gets its own version from one reserved range;
+     * the versions of IDs that were not changed stay unused, which is harmless since versions only have to grow.
+     * This method must run within a transaction.
+     *
+     * @param ids - The IDs of the tasks to change.
+     * @param status - The new status of the tasks.
+     * @param username - The username of the user who must own the tasks.
+     * @return list<long> - The IDs that were not changed because they do not exist or belong to another user.
+     */
+    public List<Long> updateStatus(List<Long> ids, Task.Status status, String username) {
+        String sql = "UPDATE tasks SET status = ?, version = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ? AND user_id = ?";
+        Long userId = userIdResolver.resolve(username);
+        Long lastVersion = userId == null ? null : reserveVersions(userId, ids.size());
+        if (lastVersion == null) {
+            return ids;
+        }
+        long firstVersion = lastVersion - ids.size() + 1;
+
+        List<Object[]> batchArgs = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            batchArgs.add(new Object[]{status.name(), firstVersion + i, ids.get(i), userId});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(sql, batchArgs);
+
+        List<Long> notUpdated = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                notUpdated.add(ids.get(i));
+            }
+        }
+        return notUpdated;
+    }
+
+    /**
+     * Changes the status of all tasks of a user that currently have a given status.
+     * This is a single set-based UPDATE statement, regardless of how many tasks match. The number of matching tasks is
+     * not known up front, so one version is reserved to lock the counter, the changed tasks are numbered from it with
+     * ROWNUM() and the counter is then moved past the last of them. This method must run within a transaction.
+     *
+     * @param currentStatus - The status the tasks must currently have.
+     * @param status - The new status of the tasks.
+     * @param username - The username of the user whose tasks are changed.
+     * @return int - The number of changed tasks.
+     */
+    public int updateStatusWhere(Task.Status currentStatus, Task.Status status, String username) {
+        String sql = "UPDATE tasks SET status = ?, version = ? + ROWNUM(), updated_at = CURRENT_TIMESTAMP " +
+                "WHERE user_id = ? AND status = ?";
+        Long userId = userIdResolver.resolve(username);
+        Long version = userId == null ? null : reserveVersions(userId, 1);
+        if (version == null) {
+            return 0;
+        }
+        int updated = jdbcTemplate.update(sql, status.name(), version - 1, userId, currentStatus.name());
+        if (updated != 1) {
+            adjustVersionCounter(userId, updated - 1);
+        }
+        return updated;
+    }
+
+    /**
+     * Reserves versions for writes to the tasks of a user.
+     * Versions are counted per user in 'users.task_version'. Raising the counter locks the user's row until the
+     * transaction ends, so the writes to one user's tasks take their versions one after the other and commit in that
+     * order: once a version is visible, no lower version of the same user can become visible later. This is what
+     * makes `findChangedSince` and `findLatestVersion` safe to use as a sync cursor. The reserved versions must
+     * therefore be used within the same transaction.
+     *
+     * @param userId - The ID of the user whose tasks are written.
+     * @param count - The number of versions to reserve.
+     * @return Long - The highest reserved version (the reserved versions are the `count` values up to and including
+     *                it), or null if the user does not exist.
+     */
+    private Long reserveVersions(long userId, int count) {
+        String sql = "SELECT task_version FROM FINAL TABLE (UPDATE users SET task_version = task_version + ? WHERE id = ?)";
+        List<Long> versions = jdbcTemplate.queryForList(sql, Long.class, count, userId);
+        if (versions.isEmpty()) {
+            return null;
         }
+        return versions.getFirst();
+    }
+
+    /**
+     * Moves the version counter of a user whose row is already locked by `reserveVersions`, e.g. to hand back a
+     * version that was not used.
+     *
+     * @param userId - The ID of the user.
+     * @param delta - The amount to add to the counter.
+     */
+    private void adjustVersionCounter(long userId, long delta) {
+        String sql = "UPDATE users SET task_version = task_version + ? WHERE id = ?";
+        jdbcTemplate.update(sql, delta, userId);
+    }
 
+    /**
+     * Determines why a conditional update did not change any rows.
+     * This is only called after an update failed, so successful writes still cost a single statement.
+     *
+     * @param id - The ID of the task that was not updated.
+     * @return UpdateResult - FORBIDDEN if the task exists (and therefore belongs to another user), NOT_FOUND otherwise.
+     */
+    private UpdateResult explainMissedUpdate(long id) {
+        String sql = "SELECT COUNT(*) FROM tasks WHERE id = ?";
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, id);
+        return count != null && count > 0 ? UpdateResult.FORBIDDEN : UpdateResult.NOT_FOUND;
+    }
+
+    /**
+     * Determines why a version-checked update did not change any rows.
+     *
+     * @param id - The ID of the task that was not updated.
+     * @param userId - The ID of the user who must own the task, or null if the user does not exist.
+     * @param expectedVersion - The version the task had to have, or null if the update did not check it.
+     * @return UpdateResult - PRECONDITION_FAILED if the user owns the task (so only the version differed), otherwise
+     *                        the same as `explainMissedUpdate(long)`.
+     */
+    private UpdateResult explainMissedUpdate(long id, Long userId, Long expectedVersion) {
+        if (expectedVersion == null || userId == null) {
+            return explainMissedUpdate(id);
+        }
+        String sql = "SELECT COUNT(*) FROM tasks WHERE id = ? AND user_id = ?";
+        Integer count = jdbcTemplate.queryForObject(sql, Integer.class, id, userId);
+        return count != null && count > 0 ? UpdateResult.PRECONDITION_FAILED : explainMissedUpdate(id);
     }
 
     /**
      * Finds a task in the database by its ID.
-     * This method queries the 'tasks' table and joins it with the 'users' table to find a task with the specified task ID
-     * and the username of the user to whom the task is assigned. If the task is found, it returns the task object. If no
+     * This method resolves the ID of the user and queries the 'tasks' table for a task with the specified task ID
+     * that is assigned to that user. If the task is found, it returns the task object. If no
      * matching task is found, it returns null.
      *
      * @param id - The ID of the task to retrieve.
@@ -71,8 +355,12 @@ public class TaskRepository {
      * @return task - The task object if found, or null if no task matches the given ID and username.
      */
     public Task findById(long id, String username) {
-        String sql = "SELECT * FROM tasks AS t LEFT JOIN users AS u ON t.user_id = u.id WHERE t.id = ? AND u.username = ?";
-        List<Task> tasks = jdbcTemplate.query(sql, new TaskRowMapper(), id, username);
+        String sql = "SELECT " + TASK_COLUMNS + " FROM tasks WHERE id = ? AND user_id = ?";
+        Long userId = userIdResolver.resolve(username);
+        if (userId == null) {
+            return null;
+        }
+        List<Task> tasks = jdbcTemplate.query(sql, new TaskRowMapper(), id, userId);
         if (tasks.isEmpty()) {
             return null;
         }
@@ -81,16 +369,106 @@ public class TaskRepository {
 
     /**
      * Retrieves a list of tasks from the database filtered by their status.
-     * This method queries the 'tasks' table and joins it with the 'users' table to find all tasks that have the specified
-     * status and are assigned to the user with the given username. It returns a list of tasks that match the criteria.
+     * This method resolves the ID of the user and queries the 'tasks' table for all tasks that have the specified
+     * status and are assigned to that user. It returns a list of tasks that match the criteria.
      *
      * @param status - The status of the tasks to be retrieved.
      * @param username - The username of the user associated with the tasks.
      * @return list<task> - A list of tasks that match the specified status and username. If no tasks match, an empty list is returned.
      */
     public List<Task> getTasksFilteredByStatus(Task.Status status, String username) {
-        String sql = "SELECT * FROM tasks AS t LEFT JOIN users AS u ON t.user_id = u.id WHERE status = ? AND u.username = ?";
-        return jdbcTemplate.query(sql, new TaskRowMapper(), status.name(), username);
+        String sql = "SELECT " + TASK_COLUMNS + " FROM tasks WHERE user_id = ? AND status = ? ORDER BY id";
+        Long userId = userIdResolver.resolve(username);
+        if (userId == null) {
+            return List.of();
+        }
+        return jdbcTemplate.query(sql, new TaskRowMapper(), userId, status.name());
+    }
+
+    /**
+     * Retrieves one page of tasks filtered by their status.
+     * This method uses keyset pagination on the task ID: it returns up to `limit` tasks with an ID greater than `afterId`,
+     * ordered by ID. The next page is requested by passing the ID of the last task of the current page, so the cost of a
+     * page does not depend on how many pages came before it.
+     *
+     * @param status - The status of the tasks to be retrieved.
+     * @param username - The username of the user associated with the tasks.
+     * @param afterId - Only tasks with an ID greater than this one are returned.
+     * @param limit - The maximum number of tasks to return.
+     * @return list<task> - A list of at most `limit` tasks ordered by ID.
+     */
+    public List<Task> getTasksFilteredByStatus(Task.Status status, String username, long afterId, int limit) {
+        String sql = "SELECT " + TASK_COLUMNS + " FROM tasks WHERE user_id = ? AND status = ? AND id > ? ORDER BY id LIMIT ?";
+        Long userId = userIdResolver.resolve(username);
+        if (userId == null) {
+            return List.of();
+        }
+        return jdbcTemplate.query(sql, new TaskRowMapper(), userId, status.name(), afterId, limit);
+    }
+
+    /**
+     * Streams tasks filtered by their status to the given consumer.
+     * Rows are read through a forward-only cursor with a bounded fetch size and handed to the consumer one at a time,
+     * so the tasks are never collected into a list and memory use does not depend on the number of matching rows.
+     *
+     * @param status - The status of the tasks to be retrieved.
+     * @param username - The username of the user associated with the tasks.
+     * @param afterId - Only tasks with an ID greater than this one are streamed.
+     * @param consumer - The consumer that receives the tasks ordered by ID.
+     */
+    public void streamTasksFilteredByStatus(Task.Status status, String username, long afterId, Consumer<Task> consumer) {
+        String sql = "SELECT " + TASK_COLUMNS + " FROM tasks WHERE user_id = ? AND status = ? AND id > ? ORDER BY id";
+        Long userId = userIdResolver.resolve(username);
+        if (userId == null) {
+            return;
+        }
+        TaskRowMapper rowMapper = new TaskRowMapper();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(streamFetchSize);
+            statement.setLong(1, userId);
+            statement.setString(2, status.name());
+            statement.setLong(3, afterId);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(rowMapper.mapRow(rs, rs.getRow())));
+    }
+
+    /**
+     * Retrieves the latest task version of a user.
+     * Every committed write to a task of the user raises this value, so it identifies the current state of all of the
+     * user's task lists. It is a single primary key lookup of the user's version counter.
+     *
+     * @param username - The username of the user associated with the tasks.
+     * @return long - The latest version, or 0 if the user has no tasks or does not exist.
+     */
+    public long findLatestVersion(String username) {
+        String sql = "SELECT task_version FROM users WHERE id = ?";
+        Long userId = userIdResolver.resolve(username);
+        if (userId == null) {
+            return 0;
+        }
+        List<Long> versions = jdbcTemplate.queryForList(sql, Long.class, userId);
+        return versions.isEmpty() ? 0 : versions.getFirst();
+    }
+
+    /**
+     * Retrieves the tasks of a user that changed after a given version.
+     * The tasks are ordered by version, so a client that remembers the highest version it has seen can fetch the next
+     * changes with it. Versions of one user become visible in order (see `reserveVersions`), so no change is skipped.
+     * The query uses the (user_id, version) index.
+     *
+     * @param username - The username of the user associated with the tasks.
+     * @param sinceVersion - Only tasks with a version greater than this one are returned.
+     * @param limit - The maximum number of tasks to return.
+     * @return list<task> - A list of at most `limit` tasks ordered by version.
+     */
+    public List<Task> findChangedSince(String username, long sinceVersion, int limit) {
+        String sql = "SELECT " + TASK_COLUMNS + " FROM tasks WHERE user_id = ? AND version > ? ORDER BY version LIMIT ?";
+        Long userId = userIdResolver.resolve(username);
+        if (userId == null) {
+            return List.of();
+        }
+        return jdbcTemplate.query(sql, new TaskRowMapper(), userId, sinceVersion, limit);
     }
 
 }
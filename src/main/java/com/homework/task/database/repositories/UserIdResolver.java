@@ -0,0 +1,74 @@
+package com.homework.task.database.repositories;
+
+import com.homework.task.cache.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserIdResolver {
+
+    private final UserRepository userRepository;
+
+    /**
+     * A cache of username to user ID mappings.
+     * User IDs never change once a user is created, so every task query can translate the username from the
+     * authenticated principal without touching the 'users' table. Unknown usernames are not cached.
+     */
+    private final ExpiringCache<String, Long> userIds;
+
+    /**
+     * Constructs a UserIdResolver.
+     *
+     * @param userRepository - The repository used to look up IDs that are not cached yet.
+     * @param cacheMaxSize - The maximum number of cached user IDs.
+     * @param cacheTtlSeconds - The number of seconds a cached user ID stays valid.
+     */
+
+    public UserIdResolver(UserRepository userRepository,
+                          @Value("${tasks.user-id-cache.max-size:100000}") int cacheMaxSize,
+                          @Value("${tasks.user-id-cache.ttl-seconds:3600}") long cacheTtlSeconds) {
+        this.userRepository = userRepository;
+        this.userIds = new ExpiringCache<>(cacheMaxSize, cacheTtlSeconds * 1000);
+    }
+
+    /**
+     * Resolves the ID of a user from their username.
+     * The ID is served from the cache when possible and loaded from the 'users' table otherwise.
+     *
+     * @param username - The username of the user.
+     * @return Long - The ID of the user, or null if no user has the given username.
+     */
+
+    public Long resolve(String username) {
+        return userIds.get(username, userRepository::findIdByUsername);
+    }
+
+    /**
+     * Records a known username to user ID mapping, e.g. when a principal has been loaded for a request.
+     *
+     * @param username - The username of the user.
+     * @param id - The ID of the user.
+     */
+
+    public void remember(String username, long id) {
+        userIds.put(username, id);
+    }
+
+    /**
+     * Forgets the cached ID of a user.
+     *
+     * @param username - The username of the user.
+     */
+
+    public void evict(String username) {
+        userIds.invalidate(username);
+    }
+
+    public long getCacheHits() {
+        return userIds.getHits();
+    }
+
+    public long getCacheMisses() {
+        return userIds.getMisses();
+    }
+}
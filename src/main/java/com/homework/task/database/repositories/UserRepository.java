@@ -57,4 +57,69 @@ public class UserRepository {
         }
         return users.getFirst();
     }
+
+    /**
+     * Retrieves the ID of a user by their username.
+     *
+     * @param username - The username of the user.
+     * @return Long - The ID of the user, or null if no user matches the given username.
+     */
+
+    public Long findIdByUsername(String username) {
+        String sql = "SELECT id FROM users WHERE username = ?";
+        List<Long> ids = jdbcTemplate.queryForList(sql, Long.class, username);
+        if (ids.isEmpty()) {
+            return null;
+        }
+        return ids.getFirst();
+    }
+
+    /**
+     * Replaces the stored password hash of an existing user.
+     * This method is used to upgrade password hashes to the current hashing algorithm and cost.
+     *
+     * @param username - The username of the user whose password hash is replaced.
+     * @param salt - The new salt (hex).
+     * @param password - The new encoded password hash.
+     * @return boolean - True if the user was found and updated, false otherwise.
+     */
+
+    public boolean updatePassword(String username, String salt, String password) {
+        String sql = "UPDATE users SET salt = ?, password = ? WHERE username = ?";
+        return 0 < jdbcTemplate.update(sql, salt, password, username);
+    }
+
+    /**
+     * Retrieves the token generation of a user.
+     *
+     * @param userId - The ID of the user.
+     * @return Long - The token generation of the user, or null if no user has the given ID.
+     */
+
+    public Long findTokenGeneration(long userId) {
+        String sql = "SELECT token_generation FROM users WHERE id = ?";
+        List<Long> generations = jdbcTemplate.queryForList(sql, Long.class, userId);
+        if (generations.isEmpty()) {
+            return null;
+        }
+        return generations.getFirst();
+    }
+
+    /**
+     * Increments the token generation of a user, which revokes every token issued for an earlier generation.
+     * The new value is read back by the same statement, so a concurrent increment can never be returned instead.
+     *
+     * @param userId - The ID of the user.
+     * @return Long - The new token generation of the user, or null if no user has the given ID.
+     */
+
+    public Long incrementTokenGeneration(long userId) {
+        String sql = "SELECT token_generation FROM FINAL TABLE " +
+                "(UPDATE users SET token_generation = token_generation + 1 WHERE id = ?)";
+        List<Long> generations = jdbcTemplate.queryForList(sql, Long.class, userId);
+        if (generations.isEmpty()) {
+            return null;
+        }
+        return generations.getFirst();
+    }
 }
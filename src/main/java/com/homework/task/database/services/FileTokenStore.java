@@ -0,0 +1,280 @@
+package com.homework.task.database.services;
+
+import com.homework.task.web.security.interfaces.TokenStore;
+import com.homework.task.web.security.jwt.TokenDigest;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@ConditionalOnProperty(name = "security.token-store.type", havingValue = "file")
+public class FileTokenStore implements TokenStore {
+
+    /**
+     * Record types 1 and 2 held plaintext access tokens in earlier versions. Access tokens are no longer stored, so
+     * replay skips such records and compacts them away.
+     */
+    private static final byte LEGACY_PUT = 1;
+    private static final byte REFRESH_PUT = 3;
+    private static final byte REFRESH_REMOVE = 4;
+
+    /**
+     * Size of the fixed record header: type (1 byte), expiry time (8 bytes), username length and digest length (4 bytes each).
+     */
+    private static final int HEADER_SIZE = 1 + 8 + 4 + 4;
+
+    private final ConcurrentHashMap<TokenDigest, StoredRefreshToken> refreshTokens = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TokenDigest> refreshTokensByUser = new ConcurrentHashMap<>();
+    private final Path logFile;
+    private final int compactionThreshold;
+
+    private FileChannel channel;
+    private long recordsSinceCompaction;
+
+    private record StoredRefreshToken(String username, long expiresAt) {
+    }
+
+    /**
+     * Constructs a FileTokenStore backed by an append-only log.
+     * Every change is appended to the log file, and on startup the log is memory-mapped and replayed, so refresh
+     * tokens survive restarts. The log is periodically compacted down to the refresh tokens that are still live.
+     *
+     * @param logFile - The path of the log file.
+     * @param compactionThreshold - The number of appended records after which the log is rewritten.
+     * @throws IOException - If the log file cannot be opened or read.
+     */
+
+    public FileTokenStore(@Value("${security.token-store.file:data/tokens.log}") Path logFile,
+                          @Value("${security.token-store.compaction-threshold:10000}") int compactionThreshold) throws IOException {
+        this.logFile = logFile;
+        this.compactionThreshold = compactionThreshold;
+        if (logFile.getParent() != null) {
+            Files.createDirectories(logFile.getParent());
+        }
+        this.channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        replay();
+    }
+
+    /**
+     * Rebuilds the in-memory state from the log.
+     * The log is mapped into memory and read record by record. A record that was only partially written (e.g. because
+     * the process crashed while appending) ends the replay, and the log is truncated to the last complete record.
+     * Refresh tokens are logged as the hexadecimal digest of the token, never as the token itself. If the log still
+     * holds access tokens written by an earlier version, it is compacted right away so they are removed from disk.
+     *
+     * @throws IOException - If the log file cannot be read.
+     */
+
+    private void replay() throws IOException {
+        long size = channel.size();
+        long now = System.currentTimeMillis();
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        boolean legacyRecords = false;
+
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            byte type = buffer.get();
+            long expiresAt = buffer.getLong();
+            int usernameLength = buffer.getInt();
+            int digestLength = buffer.getInt();
+            if (type < LEGACY_PUT || type > REFRESH_REMOVE || usernameLength < 0 || digestLength < 0
+                    || buffer.remaining() < (long) usernameLength + digestLength) {
+                buffer.position(start);
+                break;
+            }
+            if (type < REFRESH_PUT) {
+                buffer.position(buffer.position() + usernameLength + digestLength);
+                legacyRecords = true;
+                recordsSinceCompaction++;
+                continue;
+            }
+            String username = readString(buffer, usernameLength);
+            String hexDigest = readString(buffer, digestLength);
+
+            switch (type) {
+                case REFRESH_PUT -> {
+                    dropRefreshToken(username);
+                    if (expiresAt > now) {
+                        TokenDigest digest = TokenDigest.fromHex(hexDigest);
+                        refreshTokensByUser.put(username, digest);
+                        refreshTokens.put(digest, new StoredRefreshToken(username, expiresAt));
+                    }
+                }
+                default -> dropRefreshToken(username);
+            }
+            recordsSinceCompaction++;
+        }
+
+        channel.truncate(buffer.position());
+        channel.position(buffer.position());
+        if (legacyRecords) {
+            compact();
+        }
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Adds the digest of a refresh token to the store and appends it to the log.
+     *
+     * @param username - Username with which the refresh token is associated.
+     * @param refreshToken - The refresh token to store.
+     * @param expiryTime - Lifetime of the refresh token in seconds.
+     */
+
+    @Override
+    public synchronized void saveRefreshToken(String username, String refreshToken, long expiryTime) {
+        long expiresAt = System.currentTimeMillis() + expiryTime * 1000;
+        TokenDigest digest = TokenDigest.of(refreshToken);
+        append(REFRESH_PUT, username, digest.toHex(), expiresAt);
+        dropRefreshToken(username);
+        refreshTokensByUser.put(username, digest);
+        refreshTokens.put(digest, new StoredRefreshToken(username, expiresAt));
+    }
+
+    /**
+     * Removes a refresh token, records the removal in the log and returns the user it belonged to.
+     *
+     * @param refreshToken - The refresh token presented by the client.
+     * @return Optional<String> - The username, or an empty optional if the token is unknown, already used or expired.
+     */
+
+    @Override
+    public synchronized Optional<String> consumeRefreshToken(String refreshToken) {
+        StoredRefreshToken storedRefreshToken = refreshTokens.get(TokenDigest.of(refreshToken));
+        if (storedRefreshToken == null) {
+            return Optional.empty();
+        }
+        removeRefreshToken(storedRefreshToken.username());
+        if (storedRefreshToken.expiresAt() <= System.currentTimeMillis()) {
+            return Optional.empty();
+        }
+        return Optional.of(storedRefreshToken.username());
+    }
+
+    /**
+     * Removes the refresh token associated with provided username and records the removal in the log.
+     *
+     * @param username - Username with which the refresh token is associated.
+     */
+
+    @Override
+    public synchronized void removeRefreshToken(String username) {
+        if (dropRefreshToken(username)) {
+            append(REFRESH_REMOVE, username, "", 0);
+        }
+    }
+
+    private boolean dropRefreshToken(String username) {
+        TokenDigest digest = refreshTokensByUser.remove(username);
+        if (digest == null) {
+            return false;
+        }
+        refreshTokens.remove(digest);
+        return true;
+    }
+
+    /**
+     * Drops expired tokens, flushes the log to disk and compacts it once enough records have been appended.
+     */
+
+    @Override
+    @Scheduled(fixedDelayString = "${security.token-store.sweep-interval-ms:60000}")
+    public synchronized void purgeExpired() {
+        long now = System.currentTimeMillis();
+        refreshTokens.entrySet().removeIf(entry -> {
+            if (entry.getValue().expiresAt() > now) {
+                return false;
+            }
+            refreshTokensByUser.remove(entry.getValue().username(), entry.getKey());
+            return true;
+        });
+        try {
+            channel.force(false);
+            if (recordsSinceCompaction > compactionThreshold && recordsSinceCompaction > 2L * refreshTokens.size()) {
+                compact();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not maintain token log " + logFile, e);
+        }
+    }
+
+    /**
+     * Rewrites the log so that it only contains the live refresh tokens.
+     * The new log is written to a temporary file, flushed and then atomically moved over the old one, so a crash
+     * during compaction leaves either the old or the new log intact.
+     *
+     * @throws IOException - If the compacted log cannot be written.
+     */
+
+    private void compact() throws IOException {
+        Path compacted = logFile.resolveSibling(logFile.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Map.Entry<TokenDigest, StoredRefreshToken> entry : refreshTokens.entrySet()) {
+                write(out, encode(REFRESH_PUT, entry.getValue().username(), entry.getKey().toHex(), entry.getValue().expiresAt()));
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(compacted, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        recordsSinceCompaction = refreshTokens.size();
+    }
+
+    private void append(byte type, String username, String hexDigest, long expiresAt) {
+        try {
+            write(channel, encode(type, username, hexDigest, expiresAt));
+            recordsSinceCompaction++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to token log " + logFile, e);
+        }
+    }
+
+    private static ByteBuffer encode(byte type, String username, String hexDigest, long expiresAt) {
+        byte[] usernameBytes = username.getBytes(StandardCharsets.UTF_8);
+        byte[] digestBytes = hexDigest.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + usernameBytes.length + digestBytes.length);
+        buffer.put(type)
+                .putLong(expiresAt)
+                .putInt(usernameBytes.length)
+                .putInt(digestBytes.length)
+                .put(usernameBytes)
+                .put(digestBytes)
+                .flip();
+        return buffer;
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        channel.force(true);
+        channel.close();
+    }
+}
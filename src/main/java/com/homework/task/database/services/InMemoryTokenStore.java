@@ -1,38 +1,92 @@
 package com.homework.task.database.services;
 
 import com.homework.task.web.security.interfaces.TokenStore;
+import com.homework.task.web.security.jwt.TokenDigest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Service
+@ConditionalOnProperty(name = "security.token-store.type", havingValue = "memory", matchIfMissing = true)
 public class InMemoryTokenStore implements TokenStore {
-    private final ConcurrentHashMap<String, String> tokens = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<TokenDigest, StoredRefreshToken> refreshTokens = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TokenDigest> refreshTokensByUser = new ConcurrentHashMap<>();
+
+    private record StoredRefreshToken(String username, long expiresAt) {
+    }
 
     /**
-     * Adds a token to the token list.
-     * This method adds the provided token to the set created tokens for later retrieval and use.
+     * Stores the digest of a refresh token, replacing the previous refresh token of the user.
      *
-     * @param token - The token to be added to the token list.
+     * @param username - Username with which the refresh token is associated.
+     * @param refreshToken - The refresh token to store.
+     * @param expiryTime - Lifetime of the refresh token in seconds.
      */
 
     @Override
-    public void saveToken(String username, String token, long expiryTime) {
-        tokens.put(username, token);
+    public synchronized void saveRefreshToken(String username, String refreshToken, long expiryTime) {
+        TokenDigest digest = TokenDigest.of(refreshToken);
+        TokenDigest previous = refreshTokensByUser.put(username, digest);
+        if (previous != null) {
+            refreshTokens.remove(previous);
+        }
+        refreshTokens.put(digest, new StoredRefreshToken(username, System.currentTimeMillis() + expiryTime * 1000));
     }
 
     /**
-     * Retrieves a token to the token list.
-     * This method retrieves token from the list that is associated with provided username.
+     * Removes a refresh token and returns the user it belonged to.
      *
-     * @param username - Username with which the token is associated.
-     * @return Optional<String> - Returns an 'Optional' of type string with the token in it or
-     *                            an empty optional if token was not found.
+     * @param refreshToken - The refresh token presented by the client.
+     * @return Optional<String> - The username, or an empty optional if the token is unknown, already used or expired.
+     */
+
+    @Override
+    public synchronized Optional<String> consumeRefreshToken(String refreshToken) {
+        TokenDigest digest = TokenDigest.of(refreshToken);
+        StoredRefreshToken storedRefreshToken = refreshTokens.remove(digest);
+        if (storedRefreshToken == null) {
+            return Optional.empty();
+        }
+        refreshTokensByUser.remove(storedRefreshToken.username(), digest);
+        if (storedRefreshToken.expiresAt() <= System.currentTimeMillis()) {
+            return Optional.empty();
+        }
+        return Optional.of(storedRefreshToken.username());
+    }
+
+    /**
+     * Removes the refresh token associated with provided username.
+     *
+     * @param username - Username with which the refresh token is associated.
+     */
+
+    @Override
+    public synchronized void removeRefreshToken(String username) {
+        TokenDigest digest = refreshTokensByUser.remove(username);
+        if (digest != null) {
+            refreshTokens.remove(digest);
+        }
+    }
+
+    /**
+     * Removes all expired tokens from the token list.
      */
 
     @Override
-    public Optional<String> getToken(String username) {
-        return Optional.ofNullable(tokens.get(username));
+    @Scheduled(fixedDelayString = "${security.token-store.sweep-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            refreshTokens.entrySet().removeIf(entry -> {
+                if (entry.getValue().expiresAt() > now) {
+                    return false;
+                }
+                refreshTokensByUser.remove(entry.getValue().username(), entry.getKey());
+                return true;
+            });
+        }
     }
 }
@@ -0,0 +1,260 @@
+package com.homework.task.database.services;
+
+import com.homework.task.database.repositories.ReactiveTaskRepository;
+import com.homework.task.database.templates.BatchItemResult;
+import com.homework.task.database.templates.BulkUpdateResult;
+import com.homework.task.database.templates.Task;
+import com.homework.task.database.templates.TaskEvent;
+import com.homework.task.database.templates.UpdateResult;
+import com.homework.task.events.TaskEventBus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTaskService {
+
+    @Autowired
+    private ReactiveTaskRepository taskRepository;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    @Autowired
+    private TaskEventBus taskEventBus;
+
+    @Value("${tasks.batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    /**
+     * Saves a new task in the repository.
+     * As in all write methods of this service, the task event is published once the transaction has committed.
+     *
+     * @param task - The task object to be saved.
+     * @param username - The username of the user, under which the task events are published.
+     * @return Mono<Task> - The saved task including its generated ID, or an empty Mono if the task was not saved.
+     */
+    public Mono<Task> saveTask(Task task, long userId, String username) {
+        return taskRepository.saveTask(task, userId)
+                .as(transactionalOperator::transactional)
+                .doOnNext(saved -> taskEventBus.publish(username, TaskEvent.created(saved)));
+    }
+
+    /**
+     * Saves many tasks in one transaction.
+     * The tasks are consumed as they arrive, validated and inserted in batches of the configured chunk size, so only
+     * one chunk is held in memory. Invalid tasks are skipped and reported, the others are saved. If the database
+     * fails, the whole transaction is rolled back. Tasks the database returned no ID for, as when the user no longer
+     * exists, are reported as invalid.
+     *
+     * @param tasks - The tasks to save.
+     * @param username - The username of the user, under which the task events are published.
+     * @return Mono<List<BatchItemResult>> - One result per task in the order the tasks were received.
+     */
+    public Mono<List<BatchItemResult>> saveTasks(Flux<Task> tasks, long userId, String username) {
+        return Mono.defer(() -> {
+            List<Task> created = new ArrayList<>();
+            return tasks.index()
+                    .buffer(batchChunkSize)
+                    .concatMap(chunk -> saveChunk(chunk, userId, created))
+                    .collectSortedList(Comparator.comparingInt(BatchItemResult::index))
+                    .as(transactionalOperator::transactional)
+                    .doOnNext(results -> created.forEach(task -> taskEventBus.publish(username, TaskEvent.created(task))));
+        });
+    }
+
+    private Flux<BatchItemResult> saveChunk(List<Tuple2<Long, Task>> chunk, long userId, List<Task> created) {
+        List<BatchItemResult> results = new ArrayList<>(chunk.size());
+        List<Task> valid = new ArrayList<>(chunk.size());
+        List<Integer> validIndexes = new ArrayList<>(chunk.size());
+        for (Tuple2<Long, Task> item : chunk) {
+            int index = item.getT1().intValue();
+            Task task = item.getT2();
+            if (task.getName() != null && !task.getName().isEmpty() && task.getStatus() != null) {
+                valid.add(task);
+                validIndexes.add(index);
+            } else {
+                results.add(BatchItemResult.invalid(index));
+            }
+        }
+        if (valid.isEmpty()) {
+            return Flux.fromIterable(results);
+        }
+
+        // No IDs come back when the user no longer exists; tasks without an ID are reported as not saved
+        return taskRepository.saveTasks(valid, userId).defaultIfEmpty(List.of()).flatMapMany(saved -> {
+            for (int i = 0; i < validIndexes.size(); i++) {
+                if (i < saved.size()) {
+                    results.add(BatchItemResult.created(validIndexes.get(i), saved.get(i).getId()));
+                    created.add(saved.get(i));
+                } else {
+                    results.add(BatchItemResult.invalid(validIndexes.get(i)));
+                }
+            }
+            return Flux.fromIterable(results);
+        });
+    }
+
+    /**
+     * Finds a task by its ID.
+     *
+     * @param id - The ID of the task to find.
+     * @return Mono<Task> - The task with the given ID, or an empty Mono if no task is found.
+     */
+    public Mono<Task> findById(long id, long userId) {
+        return taskRepository.findById(id, userId);
+    }
+
+    /**
+     * Updates an existing task in the repository with new values.
+     *
+     * @param id - The ID of the task to update.
+     * @param newTask - The task object containing the new data to update the existing task.
+     * @param expectedVersion - The version the task must currently have, or null to skip the check.
+     * @param username - The username of the user, under which the task events are published.
+     * @return Mono<UpdateResult> - The outcome of the update (updated, invalid, not found, owned by someone else or
+     *                              changed since the expected version).
+     */
+    public Mono<UpdateResult> updateTask(long id, Task newTask, long userId, Long expectedVersion, String username) {
+        return taskRepository.updateTask(id, newTask, userId, expectedVersion)
+                .as(transactionalOperator::transactional)
+                .doOnNext(result -> {
+                    if (result == UpdateResult.UPDATED) {
+                        taskEventBus.publish(username, TaskEvent.updated(new Task(id, newTask.getName(),
+                                newTask.getDescription(), newTask.getStatus(), newTask.getVersion())));
+                    }
+                });
+    }
+
+    /**
+     * Partially updates an existing task in the repository.
+     *
+     * @param id - The ID of the task to update.
+     * @param patch - The task object containing the fields to change.
+     * @param expectedVersion - The version the task must currently have, or null to skip the check.
+     * @param username - The username of the user, under which the task events are published.
+     * @return Mono<UpdateResult> - The outcome of the update (updated, invalid, not found, owned by someone else or
+     *                              changed since the expected version).
+     */
+    public Mono<UpdateResult> patchTask(long id, Task patch, long userId, Long expectedVersion, String username) {
+        return taskRepository.patchTask(id, patch, userId, expectedVersion)
+                .as(transactionalOperator::transactional)
+                .flatMap(result -> {
+                    if (result != UpdateResult.UPDATED || !taskEventBus.hasSubscribers(username)) {
+                        return Mono.just(result);
+                    }
+                    return taskRepository.findById(id, userId)
+                            .doOnNext(patched -> taskEventBus.publish(username, TaskEvent.updated(patched)))
+                            .thenReturn(result);
+                });
+    }
+
+    /**
+     * Changes the status of the given tasks of a user.
+     * The IDs are processed in chunks of the configured batch size within one transaction. Repeated IDs are changed
+     * and counted once.
+     *
+     * @param ids - The IDs of the tasks to change.
+     * @param status - The new status of the tasks.
+     * @param username - The username of the user, under which the task events are published.
+     * @return Mono<BulkUpdateResult> - The number of changed tasks and the IDs that could not be changed.
+     */
+    public Mono<BulkUpdateResult> updateStatus(List<Long> ids, Task.Status status, long userId, String username) {
+        List<Long> uniqueIds = List.copyOf(new LinkedHashSet<>(ids));
+        return Flux.fromIterable(uniqueIds)
+                .buffer(batchChunkSize)
+                .concatMap(chunk -> taskRepository.updateStatus(chunk, status, userId))
+                .reduceWith(ArrayList<Long>::new, (notUpdated, chunkNotUpdated) -> {
+                    notUpdated.addAll(chunkNotUpdated);
+                    return notUpdated;
+                })
+                .map(notUpdated -> new BulkUpdateResult(uniqueIds.size() - notUpdated.size(), notUpdated))
+                .as(transactionalOperator::transactional)
+                .doOnNext(result -> {
+                    if (taskEventBus.hasSubscribers(username)) {
+                        Set<Long> skipped = new HashSet<>(result.notUpdated());
+                        for (Long id : uniqueIds) {
+                            if (!skipped.contains(id)) {
+                                taskEventBus.publish(username, TaskEvent.statusChanged(id, status));
+                            }
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Changes the status of all tasks of a user that currently have a given status.
+     *
+     * @param currentStatus - The status the tasks must currently have.
+     * @param status - The new status of the tasks.
+     * @param username - The username of the user, under which the task events are published.
+     * @return Mono<BulkUpdateResult> - The number of changed tasks.
+     */
+    public Mono<BulkUpdateResult> updateStatusWhere(Task.Status currentStatus, Task.Status status, long userId, String username) {
+        return taskRepository.updateStatusWhere(currentStatus, status, userId)
+                .map(updated -> new BulkUpdateResult(updated.intValue(), List.of()))
+                .as(transactionalOperator::transactional)
+                .doOnNext(result -> {
+                    if (result.updated() > 0) {
+                        taskEventBus.publish(username, TaskEvent.resync());
+                    }
+                });
+    }
+
+    /**
+     * Retrieves one page of tasks that match a specific status.
+     *
+     * @param status - The status to filter tasks by.
+     * @param afterId - Only tasks with an ID greater than this one are returned.
+     * @param limit - The maximum number of tasks to return.
+     * @return Flux<Task> - At most `limit` tasks ordered by ID.
+     */
+    public Flux<Task> getTasksFilteredByStatus(Task.Status status, long userId, long afterId, int limit) {
+        return taskRepository.findByStatus(status, userId, afterId, limit);
+    }
+
+    /**
+     * Retrieves the version of the user's task lists, which is used as their `ETag`.
+     *
+     * @return Mono<Long> - The per-user task version counter, or 0 if the user does not exist.
+     */
+    public Mono<Long> getTaskListVersion(long userId) {
+        return taskRepository.findLatestVersion(userId);
+    }
+
+    /**
+     * Retrieves the tasks of a user that were created or changed after a given version, ordered by version.
+     *
+     * @param sinceVersion - Only tasks with a version greater than this one are returned.
+     * @param limit - The maximum number of tasks to return.
+     * @return Flux<Task> - At most `limit` tasks ordered by version.
+     */
+    public Flux<Task> getTasksChangedSince(long userId, long sinceVersion, int limit) {
+        return taskRepository.findChangedSince(userId, sinceVersion, limit);
+    }
+
+    /**
+     * Streams all tasks that match a specific status, ordered by ID.
+     *
+     * @param status - The status to filter tasks by.
+     * @param afterId - Only tasks with an ID greater than this one are streamed.
+     * @return Flux<Task> - The matching tasks.
+     */
+    public Flux<Task> streamTasksFilteredByStatus(Task.Status status, long userId, long afterId) {
+        return taskRepository.findByStatus(status, userId, afterId);
+    }
+
+}
@@ -1,11 +1,27 @@
 package com.homework.task.database.services;
 
+import com.homework.task.cache.ExpiringCache;
+import com.homework.task.database.templates.TaskEvent;
+import com.homework.task.database.templates.BatchItemResult;
+import com.homework.task.database.templates.BulkUpdateResult;
 import com.homework.task.database.templates.Task;
+import com.homework.task.database.templates.UpdateResult;
 import com.homework.task.database.repositories.TaskRepository;
+import com.homework.task.events.TaskEventBus;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 public class TaskService {
@@ -13,45 +29,246 @@ public class TaskService {
     @Autowired
     private TaskRepository taskRepository;
 
+    @Autowired
+    private TaskEventBus taskEventBus;
+
     /**
-     * Saves a new task in the repository.
+     * A read-through cache of single tasks keyed by task ID and owner.
+     * Dashboards poll the same tasks over and over, so single-task reads are served from memory until a write through
+     * this service invalidates the entry or its time to live runs out.
+     */
+    private final ExpiringCache<TaskKey, Task> taskCache;
+
+    @Value("${tasks.batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    private record TaskKey(long id, String username) {
+    }
+
+    /**
+     * Constructs a TaskService.
+     *
+     * @param cacheMaxSize - The maximum number of cached tasks.
+     * @param cacheTtlSeconds - The number of seconds a cached task stays valid.
+     */
+    public TaskService(@Value("${tasks.cache.max-size:10000}") int cacheMaxSize,
+                       @Value("${tasks.cache.ttl-seconds:30}") long cacheTtlSeconds) {
+        this.taskCache = new ExpiringCache<>(cacheMaxSize, cacheTtlSeconds * 1000);
+    }
+
+    /**
+     * Saves a new task in the repository and publishes it to the user's event subscribers.
      *
      * @param task - The task object to be saved.
-     * @return boolean - Execution result (true if successful, false if not).
+     * @return Task - The saved task including its generated ID, or null if the task was not saved.
      */
-    public boolean saveTask(Task task, String username) {
-        return taskRepository.saveTask(task, username);
+    @Transactional
+    public Task saveTask(Task task, String username) {
+        Task saved = taskRepository.saveTask(task, username);
+        if (saved != null) {
+            invalidateTask(saved.getId(), username);
+            taskEventBus.publish(username, TaskEvent.created(saved));
+        }
+        return saved;
+    }
+
+    /**
+     * Saves many tasks in one transaction.
+     * The tasks are read one at a time, validated and inserted in JDBC batches of the configured chunk size, so even
+     * a long stream of tasks only keeps one chunk in memory. Invalid tasks (missing name or status) are skipped and
+     * reported, the others are saved. If the database fails, the whole transaction is rolled back.
+     *
+     * @param tasks - The tasks to save.
+     * @return list<BatchItemResult> - One result per task in the order the tasks were read.
+     */
+    @Transactional
+    public List<BatchItemResult> saveTasks(Iterator<Task> tasks, String username) {
+        List<BatchItemResult> results = new ArrayList<>();
+        List<Task> chunk = new ArrayList<>(batchChunkSize);
+        List<Integer> chunkIndexes = new ArrayList<>(batchChunkSize);
+
+        int index = 0;
+        while (tasks.hasNext()) {
+            Task task = tasks.next();
+            if (task != null && task.getName() != null && !task.getName().isEmpty() && task.getStatus() != null) {
+                chunk.add(task);
+                chunkIndexes.add(index);
+                if (chunk.size() == batchChunkSize) {
+                    flushChunk(chunk, chunkIndexes, username, results);
+                }
+            } else {
+                results.add(BatchItemResult.invalid(index));
+            }
+            index++;
+        }
+        flushChunk(chunk, chunkIndexes, username, results);
+
+        results.sort((first, second) -> Integer.compare(first.index(), second.index()));
+        invalidateTasksOf(username);
+        return results;
+    }
+
+    private void flushChunk(List<Task> chunk, List<Integer> chunkIndexes, String username, List<BatchItemResult> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Task> saved = taskRepository.saveTasks(chunk, username);
+        for (int i = 0; i < chunkIndexes.size(); i++) {
+            if (saved == null) {
+                results.add(BatchItemResult.invalid(chunkIndexes.get(i)));
+            } else {
+                results.add(BatchItemResult.created(chunkIndexes.get(i), saved.get(i).getId()));
+                taskEventBus.publish(username, TaskEvent.created(saved.get(i)));
+            }
+        }
+        chunk.clear();
+        chunkIndexes.clear();
     }
 
     /**
      * Finds a task by its ID.
+     * The task is served from the cache if possible and loaded from the repository otherwise.
      *
      * @param id - The ID of the task to find.
      * @return Task - The task object with the given ID, or null if no task is found.
      */
     public Task findById(long id, String username) {
-        return taskRepository.findById(id, username);
+        return taskCache.get(new TaskKey(id, username), key -> taskRepository.findById(key.id(), key.username()));
     }
 
     /**
      * Updates an existing task in the repository with new values.
-     * If the task exists, its fields (status, name, description) will be updated with those from the new task.
-     * If the task does not exist, no changes will be made, and the method will return false.
+     * The task's fields (status, name, description) are replaced with those from the new task in a single
+     * conditional write that also checks that the task belongs to the given user and, if requested, that it still has
+     * the version the client last saw. On success the new version is set on `newTask`.
      *
      * @param id - The ID of the task to update.
      * @param newTask - The task object containing the new data to update the existing task.
-     * @return boolean - Execution result (true if the update is successful, false if the task is not found).
+     * @param expectedVersion - The version the task must currently have, or null to skip the check.
+     * @return UpdateResult - The outcome of the update (updated, invalid, not found, owned by someone else or changed
+     *                        since the expected version).
+     */
+    @Transactional
+    public UpdateResult updateTask(long id, Task newTask, String username, Long expectedVersion) {
+        UpdateResult result = taskRepository.updateTask(id, newTask, username, expectedVersion);
+        invalidateTask(id, username);
+        if (result == UpdateResult.UPDATED) {
+            taskEventBus.publish(username, TaskEvent.updated(
+                    new Task(id, newTask.getName(), newTask.getDescription(), newTask.getStatus(), newTask.getVersion())));
+        }
+        return result;
+    }
+
+    /**
+     * Partially updates an existing task in the repository.
+     * Only the fields that are set in the patch are changed. Event subscribers receive the whole task, so it is read
+     * back after the update, but only if the user has subscribers. The expected version works as for `updateTask`.
+     *
+     * @param id - The ID of the task to update.
+     * @param patch - The task object containing the fields to change.
+     * @param expectedVersion - The version the task must currently have, or null to skip the check.
+     * @return UpdateResult - The outcome of the update (updated, invalid, not found, owned by someone else or changed
+     *                        since the expected version).
+     */
+    @Transactional
+    public UpdateResult patchTask(long id, Task patch, String username, Long expectedVersion) {
+        UpdateResult result = taskRepository.patchTask(id, patch, username, expectedVersion);
+        invalidateTask(id, username);
+        if (result == UpdateResult.UPDATED && taskEventBus.hasSubscribers(username)) {
+            Task patched = taskRepository.findById(id, username);
+            if (patched != null) {
+                taskEventBus.publish(username, TaskEvent.updated(patched));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Changes the status of the given tasks of a user.
+     * The IDs are processed in chunks of the configured batch size within one transaction. Repeated IDs are changed
+     * and counted once.
+     *
+     * @param ids - The IDs of the tasks to change.
+     * @param status - The new status of the tasks.
+     * @return BulkUpdateResult - The number of changed tasks and the IDs that could not be changed.
+     */
+    @Transactional
+    public BulkUpdateResult updateStatus(List<Long> ids, Task.Status status, String username) {
+        List<Long> uniqueIds = List.copyOf(new LinkedHashSet<>(ids));
+        List<Long> notUpdated = new ArrayList<>();
+        for (int start = 0; start < uniqueIds.size(); start += batchChunkSize) {
+            List<Long> chunk = uniqueIds.subList(start, Math.min(uniqueIds.size(), start + batchChunkSize));
+            notUpdated.addAll(taskRepository.updateStatus(chunk, status, username));
+        }
+        invalidateNowAndAfterCommit(() -> {
+            for (Long id : uniqueIds) {
+                taskCache.invalidate(new TaskKey(id, username));
+            }
+        });
+        if (taskEventBus.hasSubscribers(username)) {
+            Set<Long> skipped = new HashSet<>(notUpdated);
+            for (Long id : uniqueIds) {
+                if (!skipped.contains(id)) {
+                    taskEventBus.publish(username, TaskEvent.statusChanged(id, status));
+                }
+            }
+        }
+        return new BulkUpdateResult(uniqueIds.size() - notUpdated.size(), notUpdated);
+    }
+
+    /**
+     * Changes the status of all tasks of a user that currently have a given status.
+     * The changed IDs are not known, so event subscribers are told to resync.
+     *
+     * @param currentStatus - The status the tasks must currently have.
+     * @param status - The new status of the tasks.
+     * @return BulkUpdateResult - The number of changed tasks.
      */
-    public boolean updateTask(long id, Task newTask, String username) {
-        Task task = taskRepository.findById(id, username);
-        if (task != null) {
-            task.setStatus(newTask.getStatus());
-            task.setName(newTask.getName());
-            task.setDescription(newTask.getDescription());
-            return taskRepository.updateTask(id, task);  // Save the updated record
-        } else {
-            return false;
+    @Transactional
+    public BulkUpdateResult updateStatusWhere(Task.Status currentStatus, Task.Status status, String username) {
+        int updated = taskRepository.updateStatusWhere(currentStatus, status, username);
+        invalidateTasksOf(username);
+        if (updated > 0) {
+            taskEventBus.publish(username, TaskEvent.resync());
         }
+        return new BulkUpdateResult(updated, List.of());
+    }
+
+    private void invalidateTask(long id, String username) {
+        TaskKey key = new TaskKey(id, username);
+        invalidateNowAndAfterCommit(() -> taskCache.invalidate(key));
+    }
+
+    private void invalidateTasksOf(String username) {
+        invalidateNowAndAfterCommit(() -> taskCache.invalidateIf(key -> key.username().equals(username)));
+    }
+
+    /**
+     * Drops cached tasks that a write changes.
+     * The entries are dropped right away, so later reads in the same transaction see the write, and again once the
+     * transaction commits, as `TaskEventBus` delivers events: a concurrent read that loaded the old row before the
+     * commit would otherwise put it back into the cache for a whole time to live.
+     *
+     * @param invalidation - The cache invalidation to run.
+     */
+    private void invalidateNowAndAfterCommit(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    public long getCacheHits() {
+        return taskCache.getHits();
+    }
+
+    public long getCacheMisses() {
+        return taskCache.getMisses();
     }
 
     /**
@@ -64,4 +281,50 @@ public class TaskService {
         return taskRepository.getTasksFilteredByStatus(status, username);
     }
 
+    /**
+     * Retrieves one page of tasks that match a specific status.
+     *
+     * @param status - The status to filter tasks by.
+     * @param afterId - Only tasks with an ID greater than this one are returned.
+     * @param limit - The maximum number of tasks to return.
+     * @return list - A list of at most `limit` tasks ordered by ID.
+     */
+    public List<Task> getTasksFilteredByStatus(Task.Status status, String username, long afterId, int limit) {
+        return taskRepository.getTasksFilteredByStatus(status, username, afterId, limit);
+    }
+
+    /**
+     * Retrieves the version of a user's task lists.
+     * This is the per-user `users.task_version` counter, which every write to one of the user's tasks raises, so it
+     * can be used as an ETag for the task lists. It is a counter rather than the highest version among the remaining
+     * tasks, so it never moves backwards, also when tasks leave a list.
+     *
+     * @return long - The user's task version counter, or 0 if the user does not exist.
+     */
+    public long getTaskListVersion(String username) {
+        return taskRepository.findLatestVersion(username);
+    }
+
+    /**
+     * Retrieves the tasks of a user that were created or changed after a given version, ordered by version.
+     *
+     * @param sinceVersion - Only tasks with a version greater than this one are returned.
+     * @param limit - The maximum number of tasks to return.
+     * @return list - A list of at most `limit` tasks ordered by version.
+     */
+    public List<Task> getTasksChangedSince(String username, long sinceVersion, int limit) {
+        return taskRepository.findChangedSince(username, sinceVersion, limit);
+    }
+
+    /**
+     * Streams all tasks that match a specific status to the given consumer, ordered by ID.
+     *
+     * @param status - The status to filter tasks by.
+     * @param afterId - Only tasks with an ID greater than this one are streamed.
+     * @param consumer - The consumer that receives the tasks.
+     */
+    public void streamTasksFilteredByStatus(Task.Status status, String username, long afterId, Consumer<Task> consumer) {
+        taskRepository.streamTasksFilteredByStatus(status, username, afterId, consumer);
+    }
+
 }
@@ -1,11 +1,18 @@
 package com.homework.task.database.services;
 
+import com.homework.task.database.repositories.UserIdResolver;
 import com.homework.task.database.repositories.UserRepository;
+import com.homework.task.database.templates.TokenPair;
 import com.homework.task.database.templates.User;
+import com.homework.task.web.security.CustomUserDetailsService;
+import com.homework.task.web.security.PasswordHashingExecutor;
 import com.homework.task.web.security.PasswordManager;
+import com.homework.task.web.security.StoredCredential;
 import com.homework.task.web.security.interfaces.TokenStore;
 import com.homework.task.web.security.jwt.JwtUtility;
+import com.homework.task.web.security.jwt.TokenGenerations;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.security.NoSuchAlgorithmException;
@@ -21,7 +28,22 @@ public class UserService {
     private JwtUtility jwtUtil;
 
     @Autowired
-    private TokenBlacklistService tokenBlacklistService;
+    private TokenGenerations tokenGenerations;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private UserIdResolver userIdResolver;
+
+    @Autowired
+    private PasswordManager passwordManager;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Value("${security.jwt.refresh-expiration-ms:1209600000}")
+    private long refreshExpirationMillis;
 
     private final TokenStore tokenStore;
 
@@ -39,21 +61,35 @@ public class UserService {
     /**
      * Creates a new user and saves them to the repository.
      * This method hashes the user's password, sets the user's role to 'USER', and saves the new user to the repository.
-     * If password hashing fails, it returns false.
+     * The password is hashed on the password hashing executor. If password hashing fails, it returns false.
      *
      * @param user - The user object containing the new user's details.
+     * @throws java.util.concurrent.RejectedExecutionException - If the password hashing executor is saturated.
      * @return boolean - True if the user is successfully created and saved, false if an error occurs during the process.
      */
 
     public boolean createUser(User user) {
         User newUser = new User();
+        if (user.getPassword() == null) {
+            return false;
+        }
         try {
-            String[] saltPasswordCombo = PasswordManager.hashPassword(user.getPassword()).split(":");
+            StoredCredential credential = passwordHashingExecutor.execute(() -> passwordManager.hashPassword(user.getPassword()));
             newUser.setUsername(user.getUsername());
-            newUser.setSalt(saltPasswordCombo[0]);
-            newUser.setPassword(saltPasswordCombo[1]);
+            newUser.setSalt(credential.encodedSalt());
+            newUser.setPassword(credential.encodedHash());
             newUser.setRole(User.Role.USER);
-            return userRepository.saveUser(newUser);
+            userDetailsService.evictUser(user.getUsername());
+            userIdResolver.evict(user.getUsername());
+            if (!userRepository.saveUser(newUser)) {
+                return false;
+            }
+            // The ID may have belonged to a removed user, so a cached token generation must not carry over
+            Long userId = userIdResolver.resolve(user.getUsername());
+            if (userId != null) {
+                tokenGenerations.evict(userId);
+            }
+            return true;
         } catch (NoSuchAlgorithmException e) {
             e.printStackTrace();
         }
@@ -62,48 +98,125 @@ public class UserService {
 
     /**
      * Logs in a user by verifying their credentials and generating a JWT token.
-     * This method checks the user's username and password, and if they are correct, it generates and returns a JWT token.
-     * If a valid token already exists for the user, it blacklists the old token before generating a new one.
+     * This method checks the user's username and password, and if they are correct, it issues a short-lived JWT access
+     * token together with a refresh token. Issuing the tokens starts a new token generation, which revokes the tokens
+     * issued to the user before.
+     * Password verification runs on the password hashing executor. A password stored with an outdated algorithm or
+     * cost is re-hashed with the current settings once it has been verified. An unknown username costs the same
+     * password hash as a wrong password, so the response time does not reveal whether the user exists.
      *
      * @param user - The user object containing the user's login credentials.
      * @throws NoSuchAlgorithmException - If password verification fails due to an algorithm issue.
-     * @return String - A JWT token if the login is successful, or an empty string if the login fails.
+     * @throws java.util.concurrent.RejectedExecutionException - If the password hashing executor is saturated.
+     * @return TokenPair - The issued tokens if the login is successful, or null if the login fails.
      */
 
-    public String login(User user) throws NoSuchAlgorithmException {
+    public TokenPair login(User user) throws NoSuchAlgorithmException {
+        if (user.getPassword() == null) {
+            return null;
+        }
         User existingUser = userRepository.findByUsername(user.getUsername());
-            if (existingUser != null && PasswordManager.verifyPassword(user.getPassword(), existingUser.getSalt() + ":" + existingUser.getPassword())) {
-                Optional<String> existingToken = tokenStore.getToken(user.getUsername());
-                if (existingToken.isPresent() && !jwtUtil.isTokenExpired(existingToken.get()) && !tokenBlacklistService.isTokenBlacklisted(existingToken.get())) {
-                    // If a valid token is found, blacklist it
-                    tokenBlacklistService.blacklistToken(existingToken.get());
-                }
-
-                String token = jwtUtil.generateToken(user.getUsername());
-                tokenStore.saveToken(user.getUsername(), token, 3600); // 1 hour expiry
-                // If password is valid, generate JWT token
-                return jwtUtil.generateToken(user.getUsername());
-            }
-        return "";
+        if (existingUser == null) {
+            // Hash the password anyway, so unknown usernames cannot be told apart by the response time
+            String password = user.getPassword();
+            passwordHashingExecutor.execute(() -> passwordManager.verifyDummyPassword(password));
+            return null;
+        }
+        if (verifyPassword(user.getPassword(), existingUser)) {
+            return issueTokens(user.getUsername(), existingUser.getId());
+        }
+        return null;
+    }
+
+    /**
+     * Exchanges a refresh token for a new pair of tokens.
+     * The refresh token is consumed, so it cannot be used a second time, and a new one is issued together with the
+     * new access token.
+     *
+     * @param refreshToken - The refresh token presented by the client.
+     * @return TokenPair - The issued tokens, or null if the refresh token is unknown, already used or expired, or the
+     *                     user no longer exists.
+     */
+
+    public TokenPair refresh(String refreshToken) {
+        Optional<String> username = tokenStore.consumeRefreshToken(refreshToken);
+        if (username.isEmpty()) {
+            return null;
+        }
+        Long userId = userIdResolver.resolve(username.get());
+        if (userId == null) {
+            return null;
+        }
+        return issueTokens(username.get(), userId);
     }
 
     /**
-     * Logs out the user by blacklisting their existing JWT token.
-     * This method checks if a valid token exists for the user, and if it does, it blacklists the token to prevent future use.
+     * Issues a new access and refresh token for a user.
+     * A new token generation is started first, which revokes every access token issued to the user before. Access
+     * tokens are not stored; only the digest of the refresh token is, replacing the previous one.
+     *
+     * @param username - The username of the user.
+     * @param userId - The ID of the user.
+     * @return TokenPair - The issued tokens, or null if the user no longer exists.
+     */
+
+    private TokenPair issueTokens(String username, long userId) {
+        long generation = tokenGenerations.bump(userId);
+        if (generation < 0) {
+            return null;
+        }
+
+        String token = jwtUtil.generateToken(username, userId, generation);
+
+        String refreshToken = jwtUtil.generateRefreshToken();
+        tokenStore.saveRefreshToken(username, refreshToken, refreshExpirationMillis / 1000);
+
+        return new TokenPair(token, refreshToken);
+    }
+
+    /**
+     * Verifies a password against the stored credentials of a user and upgrades outdated hashes.
+     *
+     * @param password - The password to verify.
+     * @param existingUser - The stored user.
+     * @throws NoSuchAlgorithmException - If password verification fails due to an algorithm issue.
+     * @return boolean - True if the password matches, false otherwise.
+     */
+
+    private boolean verifyPassword(String password, User existingUser) throws NoSuchAlgorithmException {
+        StoredCredential credential;
+        try {
+            credential = StoredCredential.parse(existingUser.getSalt(), existingUser.getPassword());
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (!passwordHashingExecutor.execute(() -> passwordManager.verifyPassword(password, credential))) {
+            return false;
+        }
+        if (passwordManager.needsRehash(credential)) {
+            StoredCredential upgraded = passwordHashingExecutor.execute(() -> passwordManager.hashPassword(password));
+            userRepository.updatePassword(existingUser.getUsername(), upgraded.encodedSalt(), upgraded.encodedHash());
+        }
+        return true;
+    }
+
+    /**
+     * Logs out the user everywhere by starting a new token generation.
+     * Every access token issued to the user so far is rejected from now on, regardless of how many there are, and
+     * the refresh token of the user is revoked as well.
      *
      * @param username - The username of the user logging out.
-     * @return boolean - True if the logout is successful and the token is blacklisted, false if no valid token is found.
+     * @return boolean - True if the logout is successful, false if the user does not exist.
      */
 
     public boolean logout(String username) {
-        Optional<String> existingToken = tokenStore.getToken(username);
-        if (existingToken.isPresent() && !tokenBlacklistService.isTokenBlacklisted(existingToken.get())) {
-            // If a valid token is found, blacklist it
-            tokenBlacklistService.blacklistToken(existingToken.get());
-            return true;
-        } else {
+        Long userId = userIdResolver.resolve(username);
+        if (userId == null || tokenGenerations.bump(userId) < 0) {
             return false;
         }
+        tokenStore.removeRefreshToken(username);
+        userDetailsService.evictUser(username);
+        return true;
     }
 
 }
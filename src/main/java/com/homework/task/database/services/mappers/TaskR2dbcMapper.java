@@ -0,0 +1,30 @@
+package com.homework.task.database.services.mappers;
+
+import com.homework.task.database.templates.Task;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+
+import java.util.function.BiFunction;
+
+public class TaskR2dbcMapper implements BiFunction<Row, RowMetadata, Task> {
+
+    /**
+     * Maps an R2DBC row to a Task object.
+     * This is the reactive counterpart of `TaskRowMapper` and expects the same columns.
+     *
+     * @param row - The row returned by the query.
+     * @param metadata - The metadata of the row.
+     * @return task - A Task object populated with the data from the row.
+     */
+    @Override
+    public Task apply(Row row, RowMetadata metadata) {
+        Task task = new Task();
+        task.setId(row.get("id", Long.class));
+        task.setName(row.get("name", String.class));
+        task.setDescription(row.get("description", String.class));
+        task.setStatus(Task.Status.valueOf(row.get("status", String.class)));
+        task.setVersion(row.get("version", Long.class));
+        return task;
+    }
+
+}
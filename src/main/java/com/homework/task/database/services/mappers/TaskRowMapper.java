@@ -23,6 +23,7 @@ public class TaskRowMapper implements RowMapper<Task> {
         task.setName(rs.getString("name"));
         task.setDescription(rs.getString("description"));
         task.setStatus(Task.Status.valueOf(rs.getString("status")));
+        task.setVersion(rs.getLong("version"));
         return task;
     }
 
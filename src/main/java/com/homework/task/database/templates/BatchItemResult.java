@@ -0,0 +1,24 @@
+package com.homework.task.database.templates;
+
+/**
+ * The outcome of one item of a batch request.
+ *
+ * @param index - The position of the item in the request, starting at 0.
+ * @param id - The ID of the created task, or null if the item was rejected.
+ * @param status - CREATED if the task was saved, INVALID if it was rejected.
+ */
+public record BatchItemResult(int index, Long id, Status status) {
+
+    public enum Status {
+        CREATED,
+        INVALID
+    }
+
+    public static BatchItemResult created(int index, long id) {
+        return new BatchItemResult(index, id, Status.CREATED);
+    }
+
+    public static BatchItemResult invalid(int index) {
+        return new BatchItemResult(index, null, Status.INVALID);
+    }
+}
@@ -0,0 +1,42 @@
+package com.homework.task.database.templates;
+
+import java.util.List;
+
+public class BulkStatusRequest {
+    private Task.Status status;
+    private List<Long> ids;
+    private Task.Status currentStatus;
+
+    public BulkStatusRequest() {
+    }
+
+    public BulkStatusRequest(Task.Status status, List<Long> ids, Task.Status currentStatus) {
+        this.status = status;
+        this.ids = ids;
+        this.currentStatus = currentStatus;
+    }
+
+    public Task.Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Task.Status status) {
+        this.status = status;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public Task.Status getCurrentStatus() {
+        return currentStatus;
+    }
+
+    public void setCurrentStatus(Task.Status currentStatus) {
+        this.currentStatus = currentStatus;
+    }
+}
@@ -0,0 +1,12 @@
+package com.homework.task.database.templates;
+
+import java.util.List;
+
+/**
+ * The outcome of a bulk update.
+ *
+ * @param updated - The number of tasks that were changed.
+ * @param notUpdated - The requested IDs that do not exist or belong to another user (empty for filter-based updates).
+ */
+public record BulkUpdateResult(int updated, List<Long> notUpdated) {
+}
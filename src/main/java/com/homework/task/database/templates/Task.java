@@ -6,6 +6,7 @@ public class Task {
     private Status status;
     private String name;
     private String description;
+    private long version;
 
     public enum Status {
         ACTIVE,
@@ -22,6 +23,11 @@ public class Task {
         this.status = status;
     }
 
+    public Task(long id, String name, String description, Status status, long version) {
+        this(id, name, description, status);
+        this.version = version;
+    }
+
     public long getId() {
         return id;
     }
@@ -53,4 +59,12 @@ public class Task {
     public void setStatus(Status status) {
         this.status = status;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,36 @@
+package com.homework.task.database.templates;
+
+/**
+ * A change to the tasks of one user, as delivered by `GET /tasks/events`.
+ *
+ * @param type - What happened.
+ * @param task - The task after the change. For STATUS_CHANGED only the ID and status are set, for RESYNC it is null.
+ */
+public record TaskEvent(Type type, Task task) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        STATUS_CHANGED,
+        /**
+         * Events were dropped or cannot be described one by one; the client has to reload its tasks.
+         */
+        RESYNC
+    }
+
+    public static TaskEvent created(Task task) {
+        return new TaskEvent(Type.CREATED, task);
+    }
+
+    public static TaskEvent updated(Task task) {
+        return new TaskEvent(Type.UPDATED, task);
+    }
+
+    public static TaskEvent statusChanged(long id, Task.Status status) {
+        return new TaskEvent(Type.STATUS_CHANGED, new Task(id, null, null, status));
+    }
+
+    public static TaskEvent resync() {
+        return new TaskEvent(Type.RESYNC, null);
+    }
+}
@@ -0,0 +1,10 @@
+package com.homework.task.database.templates;
+
+/**
+ * The tokens issued on login or refresh.
+ *
+ * @param accessToken - The short-lived JWT sent with every request.
+ * @param refreshToken - The single-use token that is exchanged for a new pair once the access token expires.
+ */
+public record TokenPair(String accessToken, String refreshToken) {
+}
@@ -0,0 +1,9 @@
+package com.homework.task.database.templates;
+
+public enum UpdateResult {
+    UPDATED,
+    INVALID,
+    NOT_FOUND,
+    FORBIDDEN,
+    PRECONDITION_FAILED
+}
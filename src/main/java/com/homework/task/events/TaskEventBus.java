@@ -0,0 +1,263 @@
+package com.homework.task.events;
+
+import com.homework.task.database.templates.TaskEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class TaskEventBus {
+
+    /**
+     * Receives the events of one subscription. Listeners are called from a virtual thread, one event at a time.
+     */
+    public interface Listener {
+        void onEvent(TaskEvent event) throws IOException;
+    }
+
+    private final ConcurrentHashMap<String, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final ExecutorService dispatcher;
+    private final int queueCapacity;
+    private final int maxSubscribersPerUser;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Constructs an in-process bus that fans task events out to the subscribers of each user.
+     * Every subscription has a bounded queue that is drained on a virtual thread of its own, so publishers never wait
+     * for slow clients, and a client whose connection stalls in a blocking write only holds up its own stream. When a
+     * queue overflows, its pending events are dropped and the subscriber is told to resync instead, which keeps the
+     * memory per subscriber bounded.
+     *
+     * @param queueCapacity - The number of events that may wait for delivery per subscription.
+     * @param maxSubscribersPerUser - The number of concurrent subscriptions a user may hold.
+     */
+
+    public TaskEventBus(@Value("${tasks.events.queue-capacity:256}") int queueCapacity,
+                        @Value("${tasks.events.max-subscribers-per-user:4}") int maxSubscribersPerUser) {
+        this.queueCapacity = queueCapacity;
+        this.maxSubscribersPerUser = maxSubscribersPerUser;
+        this.dispatcher = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("task-events-", 1).factory());
+    }
+
+    /**
+     * Subscribes to the task events of a user.
+     * The first event of every subscription is a RESYNC, so a client that loads its tasks when it receives it cannot
+     * miss a change that happened while it was connecting.
+     *
+     * @param username - The user whose events are delivered.
+     * @param listener - The listener that receives the events.
+     * @return Subscription - The new subscription, or null if the user already holds the maximum number of subscriptions.
+     */
+
+    public Subscription subscribe(String username, Listener listener) {
+        Subscription subscription = new Subscription(username, listener);
+        List<Subscription> current = subscriptions.compute(username, (key, existing) -> {
+            if (existing == null) {
+                return List.of(subscription);
+            } else if (existing.size() >= maxSubscribersPerUser) {
+                return existing;
+            }
+            List<Subscription> updated = new ArrayList<>(existing);
+            updated.add(subscription);
+            return List.copyOf(updated);
+        });
+        if (!current.contains(subscription)) {
+            return null;
+        }
+        subscription.schedule();
+        return subscription;
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.username, (key, existing) -> {
+            List<Subscription> updated = new ArrayList<>(existing);
+            updated.remove(subscription);
+            return updated.isEmpty() ? null : List.copyOf(updated);
+        });
+    }
+
+    public boolean hasSubscribers(String username) {
+        return subscriptions.containsKey(username);
+    }
+
+    /**
+     * Publishes an event to every subscriber of a user.
+     * Events published inside a transaction are held back until it commits and discarded if it rolls back, so
+     * subscribers never see changes that did not happen. If a transaction produces more events per user than fit into
+     * a subscriber queue, they are collapsed into a single RESYNC. Without subscribers this is a single map lookup.
+     *
+     * @param username - The user whose tasks changed.
+     * @param event - The event to publish.
+     */
+
+    public void publish(String username, TaskEvent event) {
+        if (!hasSubscribers(username)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingEvents().add(username, event);
+        } else {
+            deliver(username, event);
+        }
+    }
+
+    private void deliver(String username, TaskEvent event) {
+        List<Subscription> current = subscriptions.get(username);
+        if (current != null) {
+            for (Subscription subscription : current) {
+                subscription.offer(event);
+            }
+        }
+    }
+
+    private PendingEvents pendingEvents() {
+        PendingEvents pending = (PendingEvents) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            PendingEvents created = new PendingEvents();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TaskEventBus.this);
+                    if (status == STATUS_COMMITTED) {
+                        created.deliver();
+                    }
+                }
+            });
+            pending = created;
+        }
+        return pending;
+    }
+
+    /**
+     * The events published within one transaction, per user.
+     */
+    private final class PendingEvents {
+
+        private final Map<String, List<TaskEvent>> events = new HashMap<>();
+
+        private void add(String username, TaskEvent event) {
+            List<TaskEvent> userEvents = events.computeIfAbsent(username, key -> new ArrayList<>());
+            if (userEvents.size() == 1 && userEvents.getFirst().type() == TaskEvent.Type.RESYNC) {
+                return;
+            }
+            if (userEvents.size() >= queueCapacity || event.type() == TaskEvent.Type.RESYNC) {
+                userEvents.clear();
+                userEvents.add(TaskEvent.resync());
+            } else {
+                userEvents.add(event);
+            }
+        }
+
+        private void deliver() {
+            events.forEach((username, userEvents) -> userEvents.forEach(event -> TaskEventBus.this.deliver(username, event)));
+        }
+    }
+
+    /**
+     * A subscription to the events of one user with its own bounded queue.
+     */
+    public final class Subscription {
+
+        private final String username;
+        private final Listener listener;
+        private final ArrayBlockingQueue<TaskEvent> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean resyncPending = new AtomicBoolean(true);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean cancelled;
+
+        private Subscription(String username, Listener listener) {
+            this.username = username;
+            this.listener = listener;
+        }
+
+        private void offer(TaskEvent event) {
+            if (!queue.offer(event)) {
+                // The client does not keep up: drop what it has not received yet and tell it to reload instead
+                dropped.add(queue.size() + 1);
+                queue.clear();
+                resyncPending.set(true);
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (!cancelled && scheduled.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // The bus is shutting down
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!cancelled) {
+                    TaskEvent event = resyncPending.getAndSet(false) ? TaskEvent.resync() : queue.poll();
+                    if (event == null) {
+                        break;
+                    }
+                    listener.onEvent(event);
+                    delivered.increment();
+                }
+            } catch (IOException | RuntimeException e) {
+                // The client has gone away
+                cancel();
+            } finally {
+                scheduled.set(false);
+            }
+            // An event may have been offered after the last poll but before the flag was cleared
+            if (!queue.isEmpty() || resyncPending.get()) {
+                schedule();
+            }
+        }
+
+        /**
+         * Ends the subscription. Pending events are discarded.
+         */
+
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                queue.clear();
+                unsubscribe(this);
+            }
+        }
+    }
+
+    public int getSubscribedUsers() {
+        return subscriptions.size();
+    }
+
+    public long getDeliveredEvents() {
+        return delivered.sum();
+    }
+
+    public long getDroppedEvents() {
+        return dropped.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+}
@@ -0,0 +1,119 @@
+package com.homework.task.metrics;
+
+import com.homework.task.database.ConcurrencyLimitedDataSource;
+import com.homework.task.database.repositories.UserIdResolver;
+import com.homework.task.database.services.TaskService;
+import com.homework.task.events.TaskEventBus;
+import com.homework.task.web.security.CustomUserDetailsService;
+import com.homework.task.web.security.LoginThrottle;
+import com.homework.task.web.security.PasswordHashingExecutor;
+import com.homework.task.web.security.jwt.JwtUtility;
+import com.homework.task.web.security.jwt.TokenGenerations;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.function.ToDoubleFunction;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Publishes the counters of the in-memory caches as Micrometer meters.
+     * Hits and misses are counters, so hit rates are derived by the monitoring system over any time window.
+     *
+     * @param userDetailsService - The service holding the principal cache.
+     * @param jwtUtil - The utility holding the verified claims cache.
+     * @param userIdResolver - The resolver holding the username to user ID cache.
+     * @param taskService - The service holding the single-task cache.
+     * @param tokenGenerations - The cached token generations.
+     * @return MeterBinder - The binder that registers the meters.
+     */
+
+    @Bean
+    public MeterBinder cacheMetrics(CustomUserDetailsService userDetailsService, JwtUtility jwtUtil,
+                                    UserIdResolver userIdResolver, TaskService taskService,
+                                    TokenGenerations tokenGenerations) {
+        return registry -> {
+            requests(registry, "security.principals.cache.requests", userDetailsService,
+                    CustomUserDetailsService::getCacheHits, CustomUserDetailsService::getCacheMisses);
+            FunctionCounter.builder("security.principals.cache.evictions", userDetailsService,
+                            CustomUserDetailsService::getCacheEvictions)
+                    .register(registry);
+            Gauge.builder("security.principals.cache.size", userDetailsService, CustomUserDetailsService::getCacheSize)
+                    .register(registry);
+            requests(registry, "security.jwt.claims.cache.requests", jwtUtil,
+                    JwtUtility::getClaimsCacheHits, JwtUtility::getClaimsCacheMisses);
+            requests(registry, "tasks.user.ids.cache.requests", userIdResolver,
+                    UserIdResolver::getCacheHits, UserIdResolver::getCacheMisses);
+            requests(registry, "tasks.cache.requests", taskService, TaskService::getCacheHits, TaskService::getCacheMisses);
+            Gauge.builder("security.jwt.generations.cached", tokenGenerations, TokenGenerations::size)
+                    .description("Users whose token generation is held in memory")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Publishes the state of the password hashing pool, the login throttle, the database concurrency limit when
+     * virtual threads are enabled and the task event streams as Micrometer meters.
+     *
+     * @param passwordHashingExecutor - The bounded pool that hashes passwords.
+     * @param loginThrottle - The rate limiter of `/login` and `/register`.
+     * @param dataSources - The data source, which is a `ConcurrencyLimitedDataSource` when virtual threads are enabled.
+     * @param taskEventBus - The fan-out of task events to open streams.
+     * @return MeterBinder - The binder that registers the meters.
+     */
+
+    @Bean
+    public MeterBinder loadMetrics(PasswordHashingExecutor passwordHashingExecutor, LoginThrottle loginThrottle,
+                                   ObjectProvider<DataSource> dataSources, TaskEventBus taskEventBus) {
+        return registry -> {
+            Gauge.builder("security.password.executor.queued", passwordHashingExecutor, PasswordHashingExecutor::getQueueSize)
+                    .register(registry);
+            Gauge.builder("security.password.executor.active", passwordHashingExecutor, PasswordHashingExecutor::getActiveCount)
+                    .register(registry);
+            FunctionCounter.builder("security.password.executor.rejected", passwordHashingExecutor,
+                            PasswordHashingExecutor::getRejections)
+                    .register(registry);
+
+            FunctionCounter.builder("security.login.throttled", loginThrottle, LoginThrottle::getThrottledClients)
+                    .tag("key", "client")
+                    .register(registry);
+            FunctionCounter.builder("security.login.throttled", loginThrottle, LoginThrottle::getThrottledUsernames)
+                    .tag("key", "username")
+                    .register(registry);
+            Gauge.builder("security.login.tracked", loginThrottle, LoginThrottle::getTrackedClients)
+                    .tag("key", "client")
+                    .register(registry);
+            Gauge.builder("security.login.tracked", loginThrottle, LoginThrottle::getTrackedUsernames)
+                    .tag("key", "username")
+                    .register(registry);
+
+            if (dataSources.getIfAvailable() instanceof ConcurrencyLimitedDataSource limited) {
+                Gauge.builder("db.concurrency.limit.available", limited, ConcurrencyLimitedDataSource::getAvailablePermits)
+                        .register(registry);
+                Gauge.builder("db.concurrency.limit.queued", limited, ConcurrencyLimitedDataSource::getQueueLength)
+                        .register(registry);
+            }
+
+            Gauge.builder("tasks.events.subscribed.users", taskEventBus, TaskEventBus::getSubscribedUsers)
+                    .register(registry);
+            FunctionCounter.builder("tasks.events.delivered", taskEventBus, TaskEventBus::getDeliveredEvents)
+                    .register(registry);
+            FunctionCounter.builder("tasks.events.dropped", taskEventBus, TaskEventBus::getDroppedEvents)
+                    .description("Events dropped because a stream's queue was full; the stream is told to resync")
+                    .register(registry);
+        };
+    }
+
+    private static <T> void requests(MeterRegistry registry, String name, T source,
+                                     ToDoubleFunction<T> hits, ToDoubleFunction<T> misses) {
+        FunctionCounter.builder(name, source, hits).tag("result", "hit").register(registry);
+        FunctionCounter.builder(name, source, misses).tag("result", "miss").register(registry);
+    }
+}
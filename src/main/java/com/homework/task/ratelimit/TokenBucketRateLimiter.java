@@ -0,0 +1,120 @@
+package com.homework.task.ratelimit;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A keyed token bucket implemented with the generic cell rate algorithm (GCRA).
+ * Each bucket is a single `AtomicLong` holding the theoretical arrival time of the next request, so acquiring a
+ * permit is one compare-and-set and no refill thread or lock is needed. A bucket whose arrival time lies in the
+ * past is full, which means it can be dropped without changing the outcome of later requests; that keeps memory
+ * bounded by the number of recently active keys.
+ */
+public class TokenBucketRateLimiter {
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxKeys;
+
+    /**
+     * Constructs a rate limiter.
+     *
+     * @param capacity - The number of requests a key may make in a burst.
+     * @param permitsPerMinute - The rate at which permits are refilled.
+     * @param maxKeys - The maximum number of keys that are tracked at the same time.
+     */
+
+    public TokenBucketRateLimiter(int capacity, double permitsPerMinute, int maxKeys) {
+        if (capacity <= 0 || permitsPerMinute <= 0 || maxKeys <= 0) {
+            throw new IllegalArgumentException("Capacity, rate and key limit must be positive");
+        }
+        this.emissionIntervalNanos = (long) (TimeUnit.MINUTES.toNanos(1) / permitsPerMinute);
+        this.burstToleranceNanos = emissionIntervalNanos * (capacity - 1);
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Takes a permit for the given key.
+     *
+     * @param key - The key to take the permit for.
+     * @return long - 0 if the permit was granted, otherwise the number of nanoseconds until one becomes available.
+     */
+
+    public long tryAcquire(String key) {
+        AtomicLong bucket = bucket(key);
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = bucket.get();
+            long start = arrival - now > 0 ? arrival : now;
+            long wait = start - now - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Checks how long the given key has to wait for a permit without taking one.
+     *
+     * @param key - The key to check.
+     * @return long - 0 if a permit is available, otherwise the number of nanoseconds until one becomes available.
+     */
+
+    public long waitTime(String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        return Math.max(0, bucket.get() - now - burstToleranceNanos);
+    }
+
+    private AtomicLong bucket(String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            makeRoom();
+        }
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(System.nanoTime()));
+    }
+
+    /**
+     * Drops all buckets that are full again.
+     */
+
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    /**
+     * Frees space for a new key.
+     * Full buckets are dropped first; if the limiter still tracks too many keys, roughly one sixteenth of them is
+     * dropped in iteration order. A dropped bucket starts over full, so under such pressure limits get looser rather
+     * than locking out unrelated keys.
+     */
+
+    private void makeRoom() {
+        evictIdle();
+        int toEvict = buckets.size() - maxKeys + Math.max(1, maxKeys / 16);
+        Iterator<Map.Entry<String, AtomicLong>> iterator = buckets.entrySet().iterator();
+        while (toEvict > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            toEvict--;
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
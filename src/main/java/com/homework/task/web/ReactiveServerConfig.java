@@ -0,0 +1,24 @@
+package com.homework.task.web;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveServerConfig {
+
+    /**
+     * Runs the reactive stack on Netty.
+     * Tomcat is on the classpath for the servlet stack and Boot would prefer it for reactive applications as well,
+     * which would put the reactive stack back on a pool of request threads instead of a few event loop threads.
+     *
+     * @return NettyReactiveWebServerFactory - The factory of the embedded Netty server.
+     */
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
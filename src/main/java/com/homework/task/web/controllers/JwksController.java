@@ -0,0 +1,35 @@
+package com.homework.task.web.controllers;
+
+import com.homework.task.web.security.jwt.JwtKeys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+public class JwksController {
+
+    @Autowired
+    JwtKeys jwtKeys;
+
+    /**
+     * Publishes the public keys that tokens are verified with.
+     * This method returns the verification keys as a JSON Web Key Set, so other services (or other nodes) can
+     * verify tokens issued by this application by the `kid` header of the token. The response may be cached for
+     * a few minutes, which is short enough for a newly added key to be picked up before it becomes active.
+     *
+     * @return ResponseEntity - A response entity containing the JSON Web Key Set.
+     */
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, List<Map<String, String>>>> getJwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .body(Map.of("keys", jwtKeys.toJwks()));
+    }
+}
@@ -0,0 +1,332 @@
+package com.homework.task.web.controllers;
+
+import com.homework.task.database.services.ReactiveTaskService;
+import com.homework.task.database.templates.BatchItemResult;
+import com.homework.task.database.templates.BulkStatusRequest;
+import com.homework.task.database.templates.BulkUpdateResult;
+import com.homework.task.database.templates.Task;
+import com.homework.task.database.templates.TaskEvent;
+import com.homework.task.database.templates.UpdateResult;
+import com.homework.task.events.TaskEventBus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+import static com.homework.task.web.controllers.TaskController.parseIfMatch;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveTaskController {
+
+    @Autowired
+    private ReactiveTaskService taskService;
+
+    @Autowired
+    private TaskEventBus taskEventBus;
+
+    @Value("${tasks.page.max-limit:1000}")
+    private int maxPageLimit;
+
+    @Value("${tasks.events.timeout-ms:1800000}")
+    private long eventsTimeoutMillis;
+
+    /**
+     * Retrieves the ID of the authenticated user.
+     * `JwtWebFilter` stores the user ID from the verified token as the details of the authentication, so the
+     * reactive stack never has to resolve usernames to IDs.
+     *
+     * @param authentication - The authentication of the current request.
+     * @return long - The ID of the authenticated user.
+     */
+
+    private static long getPrincipalUserId(Authentication authentication) {
+        return (Long) authentication.getDetails();
+    }
+
+    /**
+     * Creates a new task. The responses are the same as for `POST /tasks` on the servlet stack.
+     *
+     * @param task - The task object to be saved.
+     * @param authentication - The authentication of the current request.
+     * @return Mono<ResponseEntity> - HTTP 201 (Created) with the task and its `Location`, or HTTP 400 (Bad Request).
+     */
+
+    @PostMapping("/tasks")
+    public Mono<ResponseEntity<Object>> saveTask(@RequestBody Task task, Authentication authentication) {
+        return taskService.saveTask(task, getPrincipalUserId(authentication), authentication.getName())
+                .map(savedTask -> ResponseEntity.created(URI.create("/tasks/" + savedTask.getId())).<Object>body(savedTask))
+                .defaultIfEmpty(new ResponseEntity<>("Bad request.", HttpStatus.BAD_REQUEST));
+    }
+
+    /**
+     * Creates many tasks at once from a JSON array or a newline-delimited JSON stream.
+     * Both formats are decoded into a stream of tasks, which are saved chunk by chunk while the body is read.
+     * The responses are the same as for `POST /tasks/batch` on the servlet stack.
+     *
+     * @param tasks - The task objects to be saved.
+     * @param authentication - The authentication of the current request.
+     * @return Mono<ResponseEntity> - A response entity containing the result of every task.
+     */
+
+    @PostMapping(value = "/tasks/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<List<BatchItemResult>>> saveTasks(@RequestBody Flux<Task> tasks, Authentication authentication) {
+        return taskService.saveTasks(tasks, getPrincipalUserId(authentication), authentication.getName()).map(results -> {
+            long created = results.stream().filter(result -> result.status() == BatchItemResult.Status.CREATED).count();
+            if (created == results.size()) {
+                return new ResponseEntity<>(results, HttpStatus.CREATED);
+            } else if (created == 0) {
+                return new ResponseEntity<>(results, HttpStatus.BAD_REQUEST);
+            } else {
+                return new ResponseEntity<>(results, HttpStatus.MULTI_STATUS);
+            }
+        });
+    }
+
+    /**
+     * Updates an existing task. `If-Match` and the responses are the same as for `PUT /tasks/{id}` on the servlet stack.
+     *
+     * @param id - The ID of the task to be updated.
+     * @param task - The task object containing the updated details.
+     * @param ifMatch - The `ETag` the task must currently have, if any.
+     * @param authentication - The authentication of the current request.
+     * @return Mono<ResponseEntity> - A response entity with a message indicating the success or failure of the operation.
+     */
+
+    @PutMapping("/tasks/{id}")
+    public Mono<ResponseEntity<String>> editTask(@PathVariable long id, @RequestBody Task task,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                 Authentication authentication) {
+        return taskService.updateTask(id, task, getPrincipalUserId(authentication), parseIfMatch(ifMatch), authentication.getName())
+                .map(result -> toResponse(result, task));
+    }
+
+    /**
+     * Partially updates an existing task. `If-Match` and the responses are the same as for `PATCH /tasks/{id}` on the
+     * servlet stack.
+     *
+     * @param id - The ID of the task to be updated.
+     * @param task - The task object containing the fields to change.
+     * @param ifMatch - The `ETag` the task must currently have, if any.
+     * @param authentication - The authentication of the current request.
+     * @return Mono<ResponseEntity> - A response entity with a message indicating the success or failure of the operation.
+     */
+
+    @PatchMapping("/tasks/{id}")
+    public Mono<ResponseEntity<String>> patchTask(@PathVariable long id, @RequestBody Task task,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                  Authentication authentication) {
+        return taskService.patchTask(id, task, getPrincipalUserId(authentication), parseIfMatch(ifMatch), authentication.getName())
+                .map(result -> toResponse(result, task));
+    }
+
+    /**
+     * Changes the status of many tasks at once. The request and responses are the same as for `PUT /tasks/status`
+     * on the servlet stack.
+     *
+     * @param request - The new status and the tasks it applies to.
+     * @param authentication - The authentication of the current request.
+     * @return Mono<ResponseEntity> - A response entity containing the number of changed tasks and the IDs that were not changed.
+     */
+
+    @PutMapping("/tasks/status")
+    public Mono<ResponseEntity<BulkUpdateResult>> updateStatus(@RequestBody BulkStatusRequest request, Authentication authentication) {
+        boolean hasIds = request.getIds() != null && !request.getIds().isEmpty();
+        boolean hasFilter = request.getCurrentStatus() != null;
+        if (request.getStatus() == null || hasIds == hasFilter || hasIds && request.getIds().contains(null)) {
+            return Mono.just(new ResponseEntity<>(null, HttpStatus.BAD_REQUEST));
+        }
+
+        long userId = getPrincipalUserId(authentication);
+        Mono<BulkUpdateResult> result = hasIds
+                ? taskService.updateStatus(request.getIds(), request.getStatus(), userId, authentication.getName())
+                : taskService.updateStatusWhere(request.getCurrentStatus(), request.getStatus(), userId, authentication.getName());
+        return result.map(ResponseEntity::ok);
+    }
+
+    private ResponseEntity<String> toResponse(UpdateResult result, Task task) {
+        return switch (result) {
+            case UPDATED -> ResponseEntity.ok().eTag(Long.toString(task.getVersion())).body("OK.");
+            case INVALID -> new ResponseEntity<>("Bad request.", HttpStatus.BAD_REQUEST);
+            case NOT_FOUND -> new ResponseEntity<>("Not found.", HttpStatus.NOT_FOUND);
+            case FORBIDDEN -> new ResponseEntity<>("Forbidden.", HttpStatus.FORBIDDEN);
+            case PRECONDITION_FAILED -> new ResponseEntity<>("Precondition failed.", HttpStatus.PRECONDITION_FAILED);
+        };
+    }
+
+    /**
+     * Retrieves a task by its ID. As on the servlet stack, the version of the task is sent as the `ETag` and a matching
+     * `If-None-Match` header returns HTTP 304 (Not Modified). A task that does not exist or belongs to another user
+     * returns HTTP 403 (Forbidden).
+     *
+     * @param id - The ID of the task to be retrieved.
+     * @param authentication - The authentication of the current request.
+     * @return Mono<ResponseEntity> - A response entity containing the task object and an appropriate HTTP status code.
+     */
+
+    @GetMapping("/tasks/{id}")
+    public Mono<ResponseEntity<Task>> getTask(@PathVariable long id, Authentication authentication) {
+        return taskService.findById(id, getPrincipalUserId(authentication))
+                .map(task -> ResponseEntity.ok().eTag(Long.toString(task.getVersion())).body(task))
+                .defaultIfEmpty(new ResponseEntity<>(null, HttpStatus.FORBIDDEN));
+    }
+
+    /**
+     * Retrieves all tasks with a given status.
+     * The tasks are encoded as a JSON array while the rows arrive from the database, with backpressure from the
+     * connection; clients that accept `application/x-ndjson` get one task per line instead. As on the servlet stack,
+     * the `ETag` is the user's task version and a matching `If-None-Match` header returns HTTP 304 (Not Modified)
+     * without reading the tasks.
+     *
+     * @param status - The status of the tasks to be retrieved.
+     * @param after - Only tasks with an ID greater than this one are returned.
+     * @param authentication - The authentication of the current request.
+     * @param exchange - The current exchange, used to evaluate `If-None-Match`.
+     * @return Mono<ResponseEntity> - The matching tasks ordered by ID, or an empty Mono with HTTP 304 (Not Modified).
+     */
+
+    @GetMapping("/tasks")
+    public Mono<ResponseEntity<Flux<Task>>> getFilteredTasksByStatus(@RequestParam Task.Status status,
+                                                                     @RequestParam(defaultValue = "0") long after,
+                                                                     Authentication authentication, ServerWebExchange exchange) {
+        long userId = getPrincipalUserId(authentication);
+        return taskService.getTaskListVersion(userId).flatMap(version -> exchange.checkNotModified(Long.toString(version))
+                ? Mono.empty()
+                : Mono.just(ResponseEntity.ok(taskService.streamTasksFilteredByStatus(status, userId, after))));
+    }
+
+    /**
+     * Retrieves one page of tasks with a given status. The parameters, the `X-Next-After` header and the responses
+     * are the same as for the paged `GET /tasks` on the servlet stack, including the `ETag` and HTTP 304 (Not Modified).
+     *
+     * @param status - The status of the tasks to be retrieved.
+     * @param limit - The maximum number of tasks in the page.
+     * @param after - Only tasks with an ID greater than this one are returned.
+     * @param authentication - The authentication of the current request.
+     * @param exchange - The current exchange, used to evaluate `If-None-Match`.
+     * @return Mono<ResponseEntity> - A response entity containing a page of tasks and HTTP status code 200 (OK).
+     */
+
+    @GetMapping(value = "/tasks", params = "limit")
+    public Mono<ResponseEntity<List<Task>>> getFilteredTasksByStatusPage(@RequestParam Task.Status status, @RequestParam int limit,
+                                                                         @RequestParam(defaultValue = "0") long after,
+                                                                         Authentication authentication,
+                                                                         ServerWebExchange exchange) {
+        if (limit < 1 || limit > maxPageLimit) {
+            return Mono.just(new ResponseEntity<>(null, HttpStatus.BAD_REQUEST));
+        }
+
+        long userId = getPrincipalUserId(authentication);
+        return taskService.getTaskListVersion(userId).flatMap(version -> {
+            if (exchange.checkNotModified(Long.toString(version))) {
+                return Mono.empty();
+            }
+
+            // Fetch one extra task to find out whether another page follows
+            return taskService.getTasksFilteredByStatus(status, userId, after, limit + 1)
+                    .collectList()
+                    .map(tasks -> {
+                        if (tasks.size() > limit) {
+                            List<Task> page = tasks.subList(0, limit);
+                            return ResponseEntity.ok()
+                                    .header("X-Next-After", String.valueOf(page.getLast().getId()))
+                                    .body(page);
+                        }
+                        return new ResponseEntity<>(tasks, HttpStatus.OK);
+                    });
+        });
+    }
+
+    /**
+     * Retrieves the tasks that changed after a given version. The parameters, the `X-Next-Since` header and the
+     * responses are the same as for `GET /tasks/changes` on the servlet stack.
+     *
+     * @param since - Only tasks with a version greater than this one are returned.
+     * @param limit - The maximum number of tasks to return.
+     * @param authentication - The authentication of the current request.
+     * @return Mono<ResponseEntity> - A response entity containing the changed tasks and HTTP status code 200 (OK).
+     */
+
+    @GetMapping("/tasks/changes")
+    public Mono<ResponseEntity<List<Task>>> getTaskChanges(@RequestParam(defaultValue = "0") long since,
+                                                           @RequestParam(defaultValue = "100") int limit,
+                                                           Authentication authentication) {
+        if (limit < 1 || limit > maxPageLimit) {
+            return Mono.just(new ResponseEntity<>(null, HttpStatus.BAD_REQUEST));
+        }
+
+        // Fetch one extra task to find out whether more changes follow
+        return taskService.getTasksChangedSince(getPrincipalUserId(authentication), since, limit + 1)
+                .collectList()
+                .map(tasks -> {
+                    if (tasks.size() > limit) {
+                        List<Task> page = tasks.subList(0, limit);
+                        return ResponseEntity.ok()
+                                .header("X-Next-Since", String.valueOf(page.getLast().getVersion()))
+                                .body(page);
+                    }
+                    return new ResponseEntity<>(tasks, HttpStatus.OK);
+                });
+    }
+
+    /**
+     * Streams changes to the authenticated user's tasks as server-sent events. The events, the initial RESYNC and
+     * HTTP 429 (Too Many Requests) for users that already hold the maximum number of streams are the same as for
+     * `GET /tasks/events` on the servlet stack.
+     * An event is only handed to the connection once the client has asked for more, so a slow client fills the queue
+     * of its subscription and is sent a RESYNC, as on the servlet stack, instead of having events pile up in memory.
+     *
+     * @param authentication - The authentication of the current request.
+     * @return Flux<ServerSentEvent> - The task events, ending after the configured stream timeout.
+     */
+
+    @GetMapping(value = "/tasks/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<TaskEvent>> streamTaskEvents(Authentication authentication) {
+        return Flux.<ServerSentEvent<TaskEvent>>create(sink -> {
+            Semaphore demand = new Semaphore(0);
+            TaskEventBus.Subscription subscription = taskEventBus.subscribe(authentication.getName(), event -> {
+                // The listener runs on a virtual thread of its own, so it may wait for the client
+                try {
+                    demand.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the client");
+                }
+                sink.next(ServerSentEvent.builder(event).event(event.type().name()).build());
+            });
+            if (subscription == null) {
+                sink.error(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS));
+                return;
+            }
+
+            sink.onRequest(requested -> addDemand(demand, requested));
+            sink.onDispose(() -> {
+                subscription.cancel();
+                // Wakes up a listener that is still waiting for the client
+                addDemand(demand, Long.MAX_VALUE);
+            });
+        }).take(Duration.ofMillis(eventsTimeoutMillis));
+    }
+
+    private static void addDemand(Semaphore demand, long requested) {
+        // Unbounded demand is capped, as a semaphore holds at most Integer.MAX_VALUE permits
+        int room = Integer.MAX_VALUE - demand.availablePermits();
+        demand.release((int) Math.min(requested, room));
+    }
+}
@@ -0,0 +1,171 @@
+package com.homework.task.web.controllers;
+
+import com.homework.task.database.services.UserService;
+import com.homework.task.database.templates.TokenPair;
+import com.homework.task.database.templates.User;
+import com.homework.task.web.security.LoginThrottle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.homework.task.web.controllers.UserController.REFRESH_TOKEN_HEADER;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserController {
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    LoginThrottle loginThrottle;
+
+    /**
+     * Runs a call into the JDBC based `UserService` off the event loop.
+     *
+     * @param call - The blocking call.
+     * @return Mono - The result of the call, published on the bounded elastic scheduler.
+     */
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Retrieves the address of the client, which keys the per-client rate limit.
+     * With `server.forward-headers-strategy=native` Reactor Netty takes the address from `X-Forwarded-For` or
+     * `Forwarded`, so clients behind a load balancer do not all share the bucket of the load balancer. Unlike Tomcat,
+     * Netty trusts these headers from any peer, so the reactive stack must only be reachable through the proxy.
+     *
+     * @param request - The HTTP request.
+     * @return String - The address of the client.
+     */
+
+    private static String clientAddress(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress == null || remoteAddress.getAddress() == null
+                ? "unknown" : remoteAddress.getAddress().getHostAddress();
+    }
+
+    /**
+     * Registers a new user. The responses are the same as for `POST /register` on the servlet stack.
+     *
+     * @param user - The user object containing the user's details (username, password, etc.).
+     * @param request - The HTTP request, used to identify the client.
+     * @return Mono<ResponseEntity> - A response entity indicating the success or failure of the user registration process.
+     */
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<String>> registerUser(@RequestBody User user, ServerHttpRequest request) {
+        long wait = loginThrottle.acquireForClient(clientAddress(request));
+        if (wait > 0) {
+            return Mono.just(LoginThrottle.tooManyRequests(wait));
+        }
+        return blocking(() -> userService.createUser(user)).map(created -> created
+                ? new ResponseEntity<>("Created.", HttpStatus.CREATED)
+                : new ResponseEntity<>("Bad request.", HttpStatus.BAD_REQUEST));
+    }
+
+    /**
+     * Authenticates a user and returns a JWT token. The throttling and the responses are the same as for `POST /login`
+     * on the servlet stack.
+     *
+     * @param user - The user object containing the user's login credentials (username and password).
+     * @param request - The HTTP request, used to identify the client.
+     * @return Mono<ResponseEntity> - A response entity containing the JWT token with a "bearer:" prefix if login is
+     *         successful or an error message if login fails.
+     */
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<String>> login(@RequestBody User user, ServerHttpRequest request) {
+        long wait = loginThrottle.acquireForClient(clientAddress(request));
+        if (wait == 0 && user.getUsername() != null) {
+            wait = loginThrottle.checkUsername(user.getUsername());
+        }
+        if (wait > 0) {
+            return Mono.just(LoginThrottle.tooManyRequests(wait));
+        }
+
+        return blocking(() -> userService.login(user))
+                .map(this::toTokenResponse)
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    if (user.getUsername() != null) {
+                        loginThrottle.recordFailure(user.getUsername());
+                    }
+                    return new ResponseEntity<>("Bad request.", HttpStatus.BAD_REQUEST);
+                }));
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token. The responses are the same as for `POST /token/refresh` on
+     * the servlet stack.
+     *
+     * @param refreshToken - The refresh token issued by the last login or refresh.
+     * @param request - The HTTP request, used to identify the client.
+     * @return Mono<ResponseEntity> - A response entity containing the new JWT token with a "bearer:" prefix if the
+     *         refresh token is valid or an error message if it is not.
+     */
+
+    @PostMapping("/token/refresh")
+    public Mono<ResponseEntity<String>> refresh(@RequestHeader(REFRESH_TOKEN_HEADER) String refreshToken, ServerHttpRequest request) {
+        long wait = loginThrottle.acquireForClient(clientAddress(request));
+        if (wait > 0) {
+            return Mono.just(LoginThrottle.tooManyRequests(wait));
+        }
+
+        return blocking(() -> userService.refresh(refreshToken))
+                .map(this::toTokenResponse)
+                .defaultIfEmpty(new ResponseEntity<>("Unauthorized.", HttpStatus.UNAUTHORIZED));
+    }
+
+    private ResponseEntity<String> toTokenResponse(TokenPair tokens) {
+        return ResponseEntity.ok()
+                .header(REFRESH_TOKEN_HEADER, tokens.refreshToken())
+                .body("bearer:" + tokens.accessToken());
+    }
+
+    /**
+     * Logs out the authenticated user and revokes all of their tokens. The responses are the same as for
+     * `POST /logout` on the servlet stack.
+     *
+     * @param authentication - The authentication of the current request.
+     * @return Mono<ResponseEntity> - A response entity indicating the success or failure of the logout process.
+     */
+
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<String>> logout(Authentication authentication) {
+        return blocking(() -> userService.logout(authentication.getName())).map(loggedOut -> loggedOut
+                ? new ResponseEntity<>("OK.", HttpStatus.OK)
+                : new ResponseEntity<>("Unauthorized.", HttpStatus.UNAUTHORIZED));
+    }
+
+    /**
+     * Answers requests that could not be served because the password hashing executor is saturated with HTTP 503
+     * (Service Unavailable) and a `Retry-After` header.
+     *
+     * @param e - The exception thrown when the hashing job was rejected.
+     * @return ResponseEntity - A response entity with HTTP 503 (Service Unavailable).
+     */
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> passwordHashingUnavailable(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Service unavailable.");
+    }
+}
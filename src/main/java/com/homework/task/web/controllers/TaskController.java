@@ -1,23 +1,55 @@
 package com.homework.task.web.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.homework.task.database.templates.BatchItemResult;
+import com.homework.task.database.templates.BulkStatusRequest;
+import com.homework.task.database.templates.BulkUpdateResult;
 import com.homework.task.database.templates.Task;
+import com.homework.task.database.templates.UpdateResult;
 import com.homework.task.database.services.TaskService;
+import com.homework.task.events.TaskEventBus;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class TaskController {
 
     @Autowired
     private TaskService taskService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TaskEventBus taskEventBus;
+
+    @Value("${tasks.page.max-limit:1000}")
+    private int maxPageLimit;
+
+    @Value("${tasks.events.timeout-ms:1800000}")
+    private long eventsTimeoutMillis;
+
     /**
      * Retrieves the username of the currently authenticated user.
      * This method extracts the username of the currently authenticated user from the SecurityContext.
@@ -39,55 +71,188 @@ public class TaskController {
         return username;
     }
 
+    /**
+     * Reads the version a client expects a task to have from an `If-Match` header.
+     * The header holds the `ETag` of the task as returned by `GET /tasks/{id}`, i.e. its version in quotes. A missing
+     * header or `*` means the update does not depend on the version. Any other value that is not a single version
+     * cannot match a task, so it is mapped to -1, which no task ever has.
+     *
+     * @param ifMatch - The value of the `If-Match` header, or null if it is missing.
+     * @return Long - The expected version, or null if the version is not to be checked.
+     */
+
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 1 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
     /**
      * Creates a new task and saves it to the database.
      * This method attempts to save a new task to the database. The task is saved using the `taskService.saveTask` method,
      * and the authenticated user's username is automatically passed along to associate the task with the current user.
-     * If the task is successfully created, the response will be HTTP 201 (Created). If there is an issue with the request,
+     * If the task is successfully created, the response will be HTTP 201 (Created) with the created task in the body and
+     * its URL in the `Location` header, so clients do not have to look the task up again. If there is an issue with the request,
      * it returns HTTP 400 (Bad Request).
      *
      * @param task - The task object to be saved.
-     * @return ResponseEntity - A response entity with a message indicating the success or failure of the operation.
+     * @return ResponseEntity - A response entity with the created task or a message describing the failure.
      */
 
     @PostMapping("/tasks")
-    public ResponseEntity<String> saveTask(@RequestBody Task task) {
+    public ResponseEntity<?> saveTask(@RequestBody Task task) {
 
-        if(taskService.saveTask(task, getPrincipalUsername())) {
-            return new ResponseEntity<>("Created.", HttpStatus.CREATED);
+        Task savedTask = taskService.saveTask(task, getPrincipalUsername());
+        if (savedTask != null) {
+            return ResponseEntity.created(URI.create("/tasks/" + savedTask.getId())).body(savedTask);
         } else {
             return new ResponseEntity<>("Bad request.", HttpStatus.BAD_REQUEST);
         }
     }
 
+    /**
+     * Creates many tasks at once.
+     * This method accepts a JSON array of tasks and saves them in JDBC batches inside one transaction. Every task is
+     * validated on its own, and the response contains one result per task with its position in the request and the ID
+     * of the created task. The response is HTTP 201 (Created) if all tasks were created, HTTP 207 (Multi-Status) if only
+     * some were and HTTP 400 (Bad Request) if none were.
+     *
+     * @param tasks - The task objects to be saved.
+     * @return ResponseEntity - A response entity containing the result of every task.
+     */
+
+    @PostMapping(value = "/tasks/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BatchItemResult>> saveTasks(@RequestBody List<Task> tasks) {
+        return toBatchResponse(taskService.saveTasks(tasks.iterator(), getPrincipalUsername()));
+    }
+
+    /**
+     * Creates many tasks from a newline-delimited JSON stream.
+     * This method behaves like the JSON array variant, but reads the tasks from the request body while they are saved,
+     * so large imports never have to be held in memory as a whole.
+     *
+     * @param request - The HTTP request whose body contains one task per line.
+     * @throws IOException - If the request body cannot be read or parsed.
+     * @return ResponseEntity - A response entity containing the result of every task.
+     */
+
+    @PostMapping(value = "/tasks/batch", consumes = "application/x-ndjson")
+    public ResponseEntity<List<BatchItemResult>> saveTasksStream(HttpServletRequest request) throws IOException {
+        try (MappingIterator<Task> tasks = objectMapper.readerFor(Task.class).readValues(request.getInputStream())) {
+            return toBatchResponse(taskService.saveTasks(tasks, getPrincipalUsername()));
+        }
+    }
+
+    private ResponseEntity<List<BatchItemResult>> toBatchResponse(List<BatchItemResult> results) {
+        long created = results.stream().filter(result -> result.status() == BatchItemResult.Status.CREATED).count();
+        if (created == results.size()) {
+            return new ResponseEntity<>(results, HttpStatus.CREATED);
+        } else if (created == 0) {
+            return new ResponseEntity<>(results, HttpStatus.BAD_REQUEST);
+        } else {
+            return new ResponseEntity<>(results, HttpStatus.MULTI_STATUS);
+        }
+    }
+
     /**
      * Updates an existing task in the database.
      * This method attempts to update an existing task with the specified ID. The update is performed using the `taskService.updateTask` method,
      * and the authenticated user's username is automatically passed to ensure that the task is updated for the correct user.
      * If the task is successfully updated, the response will be HTTP 200 (OK). If the user is not authorized to edit the task,
-     * it returns HTTP 403 (Forbidden).
+     * it returns HTTP 403 (Forbidden), if the task does not exist HTTP 404 (Not Found) and if the new values are invalid
+     * HTTP 400 (Bad Request). With an `If-Match` header the task is only updated if its `ETag` still matches, which is
+     * checked by the update itself; otherwise HTTP 412 (Precondition Failed) is returned and the client has to reload
+     * the task. A successful update returns the new `ETag`.
      *
      * @param id - The ID of the task to be updated.
      * @param task - The task object containing the updated details.
+     * @param ifMatch - The `ETag` the task must currently have, if any.
      * @return ResponseEntity - A response entity with a message indicating the success or failure of the operation.
      */
 
     @PutMapping("/tasks/{id}")
-    public ResponseEntity<String> editTask(@PathVariable long id, @RequestBody Task task) {
+    public ResponseEntity<String> editTask(@PathVariable long id, @RequestBody Task task,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return toResponse(taskService.updateTask(id, task, getPrincipalUsername(), parseIfMatch(ifMatch)), task);
+    }
 
-        if(taskService.updateTask(id, task, getPrincipalUsername())) {
-            return new ResponseEntity<>("OK.", HttpStatus.OK);
+    /**
+     * Partially updates an existing task in the database.
+     * This method only changes the fields that are present in the request body, so clients do not have to resend
+     * the whole task. `If-Match` and the responses are the same as for `PUT /tasks/{id}`.
+     *
+     * @param id - The ID of the task to be updated.
+     * @param task - The task object containing the fields to change.
+     * @param ifMatch - The `ETag` the task must currently have, if any.
+     * @return ResponseEntity - A response entity with a message indicating the success or failure of the operation.
+     */
+
+    @PatchMapping("/tasks/{id}")
+    public ResponseEntity<String> patchTask(@PathVariable long id, @RequestBody Task task,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return toResponse(taskService.patchTask(id, task, getPrincipalUsername(), parseIfMatch(ifMatch)), task);
+    }
+
+    /**
+     * Changes the status of many tasks at once.
+     * The request either lists the task `ids` to change or selects all tasks with a given `currentStatus`; exactly one
+     * of them must be present. Ownership is checked by the update statements themselves, and IDs that do not exist or
+     * belong to another user are reported in the response. An invalid request returns HTTP 400 (Bad Request).
+     *
+     * @param request - The new status and the tasks it applies to.
+     * @return ResponseEntity - A response entity containing the number of changed tasks and the IDs that were not changed.
+     */
+
+    @PutMapping("/tasks/status")
+    public ResponseEntity<BulkUpdateResult> updateStatus(@RequestBody BulkStatusRequest request) {
+        boolean hasIds = request.getIds() != null && !request.getIds().isEmpty();
+        boolean hasFilter = request.getCurrentStatus() != null;
+        if (request.getStatus() == null || hasIds == hasFilter || hasIds && request.getIds().contains(null)) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+
+        String username = getPrincipalUsername();
+        if (hasIds) {
+            return new ResponseEntity<>(taskService.updateStatus(request.getIds(), request.getStatus(), username), HttpStatus.OK);
         } else {
-            return new ResponseEntity<>("Forbidden.", HttpStatus.FORBIDDEN);
+            return new ResponseEntity<>(taskService.updateStatusWhere(request.getCurrentStatus(), request.getStatus(), username), HttpStatus.OK);
         }
     }
 
+    /**
+     * Maps the result of an update to an HTTP response.
+     *
+     * @param result - The result of the update.
+     * @param task - The updated task, which carries the new version if the update succeeded.
+     * @return ResponseEntity - A response entity with a message and the matching HTTP status code.
+     */
+
+    private ResponseEntity<String> toResponse(UpdateResult result, Task task) {
+        return switch (result) {
+            case UPDATED -> ResponseEntity.ok().eTag(Long.toString(task.getVersion())).body("OK.");
+            case INVALID -> new ResponseEntity<>("Bad request.", HttpStatus.BAD_REQUEST);
+            case NOT_FOUND -> new ResponseEntity<>("Not found.", HttpStatus.NOT_FOUND);
+            case FORBIDDEN -> new ResponseEntity<>("Forbidden.", HttpStatus.FORBIDDEN);
+            case PRECONDITION_FAILED -> new ResponseEntity<>("Precondition failed.", HttpStatus.PRECONDITION_FAILED);
+        };
+    }
+
     /**
      * Retrieves a task by its ID.
      * This method retrieves a task with the specified ID from the database. The task is fetched using the `taskService.findById` method,
      * and the username of the authenticated user is passed to ensure that the task belongs to the correct user.
-     * If the task is found, it is returned with HTTP 200 (OK). If the task does not exist or the user is not authorized,
-     * it returns HTTP 403 (Forbidden).
+     * If the task is found, it is returned with HTTP 200 (OK) and its version as the `ETag`. A request whose
+     * `If-None-Match` header matches the current version gets HTTP 304 (Not Modified) without a body. If the task does
+     * not exist or the user is not authorized, it returns HTTP 403 (Forbidden).
      *
      * @param id - The ID of the task to be retrieved.
      * @return ResponseEntity - A response entity containing the task object and an appropriate HTTP status code.
@@ -102,22 +267,139 @@ public class TaskController {
         if (task == null) {
             return new ResponseEntity<>(null, HttpStatus.FORBIDDEN);
         } else {
-            return new ResponseEntity<>(taskService.findById(id, username), HttpStatus.OK);
+            return ResponseEntity.ok().eTag(Long.toString(task.getVersion())).body(task);
         }
     }
 
     /**
      * Retrieves a list of tasks filtered by status.
-     * This method fetches a list of tasks with a specified status, filtered based on the authenticated user's username.
-     * The status is passed as a request parameter, and the tasks are fetched using the `taskService.getTasksFilteredByStatus` method.
-     * The list of tasks is returned with HTTP 200 (OK).
+     * This method fetches all tasks with a specified status, filtered based on the authenticated user's username.
+     * The tasks are written to the response as a JSON array while they are read from the database, so the response
+     * is never held in memory as a whole. An optional `after` parameter resumes the list after the task with that ID.
+     * The list of tasks is returned with HTTP 200 (OK). The `ETag` is the user's `users.task_version` counter, which
+     * every write to the user's tasks raises, so a request whose `If-None-Match` header still matches gets HTTP 304
+     * (Not Modified) without reading the tasks.
      *
      * @param status - The status of the tasks to be retrieved.
-     * @return ResponseEntity - A response entity containing a list of tasks and HTTP status code 200 (OK).
+     * @param after - Only tasks with an ID greater than this one are returned.
+     * @param webRequest - The current request, used to evaluate `If-None-Match`.
+     * @param response - The HTTP response the tasks are written to.
+     * @throws IOException - If writing the response fails.
      */
 
     @GetMapping("/tasks")
-    public ResponseEntity<List<Task>> getFilteredTasksByStatus(@RequestParam Task.Status status) {
-        return new ResponseEntity<>(taskService.getTasksFilteredByStatus(status, getPrincipalUsername()), HttpStatus.OK);
+    public void getFilteredTasksByStatus(@RequestParam Task.Status status, @RequestParam(defaultValue = "0") long after,
+                                         WebRequest webRequest, HttpServletResponse response) throws IOException {
+        String username = getPrincipalUsername();
+        if (webRequest.checkNotModified(Long.toString(taskService.getTaskListVersion(username)))) {
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator generator = objectMapper.createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            taskService.streamTasksFilteredByStatus(status, username, after, task -> {
+                try {
+                    generator.writeObject(task);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Retrieves one page of tasks filtered by status.
+     * This method is used when the `limit` parameter is present. It returns up to `limit` tasks with an ID greater than
+     * `after`, ordered by ID. If more tasks are available, the `X-Next-After` header contains the value of `after`
+     * to use for the next page. A limit outside of 1 and the configured maximum returns HTTP 400 (Bad Request).
+     * The `ETag` and HTTP 304 (Not Modified) work as for the streamed list.
+     *
+     * @param status - The status of the tasks to be retrieved.
+     * @param limit - The maximum number of tasks in the page.
+     * @param after - Only tasks with an ID greater than this one are returned.
+     * @param webRequest - The current request, used to evaluate `If-None-Match`.
+     * @return ResponseEntity - A response entity containing a page of tasks and HTTP status code 200 (OK).
+     */
+
+    @GetMapping(value = "/tasks", params = "limit")
+    public ResponseEntity<List<Task>> getFilteredTasksByStatusPage(@RequestParam Task.Status status, @RequestParam int limit,
+                                                                   @RequestParam(defaultValue = "0") long after,
+                                                                   WebRequest webRequest) {
+        if (limit < 1 || limit > maxPageLimit) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+
+        String username = getPrincipalUsername();
+        if (webRequest.checkNotModified(Long.toString(taskService.getTaskListVersion(username)))) {
+            return null;
+        }
+
+        // Fetch one extra task to find out whether another page follows
+        List<Task> tasks = taskService.getTasksFilteredByStatus(status, username, after, limit + 1);
+        if (tasks.size() > limit) {
+            tasks = tasks.subList(0, limit);
+            return ResponseEntity.ok()
+                    .header("X-Next-After", String.valueOf(tasks.getLast().getId()))
+                    .body(tasks);
+        }
+        return new ResponseEntity<>(tasks, HttpStatus.OK);
+    }
+
+    /**
+     * Retrieves the authenticated user's tasks that changed after a given version.
+     * Every write to a task gives it a new, higher version, so a client that remembers the highest version it has seen
+     * only fetches what changed since instead of reloading whole lists. The tasks are ordered by version and at most
+     * `limit` tasks are returned; if more changes are available, the `X-Next-Since` header contains the value of
+     * `since` for the next request. A limit outside of 1 and the configured maximum returns HTTP 400 (Bad Request).
+     *
+     * @param since - Only tasks with a version greater than this one are returned.
+     * @param limit - The maximum number of tasks to return.
+     * @return ResponseEntity - A response entity containing the changed tasks and HTTP status code 200 (OK).
+     */
+
+    @GetMapping("/tasks/changes")
+    public ResponseEntity<List<Task>> getTaskChanges(@RequestParam(defaultValue = "0") long since,
+                                                     @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > maxPageLimit) {
+            return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+        }
+
+        // Fetch one extra task to find out whether more changes follow
+        List<Task> tasks = taskService.getTasksChangedSince(getPrincipalUsername(), since, limit + 1);
+        if (tasks.size() > limit) {
+            tasks = tasks.subList(0, limit);
+            return ResponseEntity.ok()
+                    .header("X-Next-Since", String.valueOf(tasks.getLast().getVersion()))
+                    .body(tasks);
+        }
+        return new ResponseEntity<>(tasks, HttpStatus.OK);
+    }
+
+    /**
+     * Streams changes to the authenticated user's tasks as server-sent events.
+     * Every event is named after its type (CREATED, UPDATED, STATUS_CHANGED or RESYNC) and carries the changed task
+     * as JSON, so dashboards can apply deltas instead of polling `GET /tasks`. The first event is always RESYNC, and
+     * RESYNC is sent again whenever the client falls too far behind and events were dropped; clients then reload
+     * their tasks. A user may hold a limited number of streams at once, further requests get HTTP 429 (Too Many Requests).
+     *
+     * @return ResponseEntity - A response entity with the event stream.
+     */
+
+    @GetMapping(value = "/tasks/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTaskEvents() {
+        SseEmitter emitter = new SseEmitter(eventsTimeoutMillis);
+        TaskEventBus.Subscription subscription = taskEventBus.subscribe(getPrincipalUsername(), event -> emitter.send(
+                SseEmitter.event().name(event.type().name()).data(event, MediaType.APPLICATION_JSON)));
+        if (subscription == null) {
+            return new ResponseEntity<>(null, HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(error -> subscription.cancel());
+        return new ResponseEntity<>(emitter, HttpStatus.OK);
     }
 }
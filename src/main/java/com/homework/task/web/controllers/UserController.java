@@ -1,37 +1,71 @@
 package com.homework.task.web.controllers;
 
 import com.homework.task.database.services.UserService;
+import com.homework.task.database.templates.TokenPair;
 import com.homework.task.database.templates.User;
+import com.homework.task.web.security.LoginThrottle;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserController {
 
+    public static final String REFRESH_TOKEN_HEADER = "X-Refresh-Token";
+
     @Autowired
     UserService userService;
 
+    @Autowired
+    LoginThrottle loginThrottle;
+
+    /**
+     * Retrieves the address of the client, which keys the per-client rate limit.
+     * With `server.forward-headers-strategy=native` Tomcat takes the address from `X-Forwarded-For` when the request
+     * comes from a trusted proxy (`server.tomcat.remoteip.internal-proxies`), so clients behind a load balancer do not
+     * all share the bucket of the load balancer, and clients that connect directly cannot pick a bucket of their own.
+     *
+     * @param request - The HTTP request.
+     * @return String - The address of the client.
+     */
+
+    private static String clientAddress(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+
     /**
      * Registers a new user by creating their account in the system.
      * This method receives a `User` object with the user's details, then delegates the user creation process to the
      * `userService.createUser` method. If the user is successfully created, it returns HTTP 201 (Created). If there is
-     * an issue with the request (e.g., invalid user details), it returns HTTP 400 (Bad Request).
+     * an issue with the request (e.g., invalid user details), it returns HTTP 400 (Bad Request). Clients that send too
+     * many requests get HTTP 429 (Too Many Requests).
      *
      * @param user - The user object containing the user's details (username, password, etc.).
+     * @param request - The HTTP request, used to identify the client.
      * @return ResponseEntity - A response entity indicating the success or failure of the user registration process.
      */
 
     @PostMapping("/register")
-    public ResponseEntity<String> registerUser(@RequestBody User user) {
+    public ResponseEntity<String> registerUser(@RequestBody User user, HttpServletRequest request) {
+        long wait = loginThrottle.acquireForClient(clientAddress(request));
+        if (wait > 0) {
+            return LoginThrottle.tooManyRequests(wait);
+        }
         if (userService.createUser(user)) {
             return new ResponseEntity<>("Created.", HttpStatus.CREATED);
         } else {
@@ -42,25 +76,73 @@ public class UserController {
     /**
      * Authenticates a user and returns a JWT token.
      * This method receives a `User` object with the user's login credentials, then delegates the login process to the
-     * `userService.login` method. If the login is successful, it returns a JWT token with HTTP 200 (OK). If the credentials
-     * are invalid or there is an error, it returns HTTP 400 (Bad Request).
+     * `userService.login` method. If the login is successful, it returns a JWT token with HTTP 200 (OK) and the refresh
+     * token in the `X-Refresh-Token` header. If the credentials
+     * are invalid or there is an error, it returns HTTP 400 (Bad Request). Requests are throttled per client address and,
+     * after repeated failures, per username; throttled requests get HTTP 429 (Too Many Requests) before any password
+     * is checked.
      *
      * @param user - The user object containing the user's login credentials (username and password).
+     * @param request - The HTTP request, used to identify the client.
      * @throws NoSuchAlgorithmException - If there is an error verifying the password.
      * @return ResponseEntity - A response entity containing the JWT token with a "bearer:" prefix if login is successful
      *         or an error message if login fails.
      */
 
     @PostMapping("/login")
-    public ResponseEntity<String> login(@RequestBody User user) throws NoSuchAlgorithmException {
-        String token = userService.login(user);
-        if (token.isEmpty()) {
+    public ResponseEntity<String> login(@RequestBody User user, HttpServletRequest request) throws NoSuchAlgorithmException {
+        long wait = loginThrottle.acquireForClient(clientAddress(request));
+        if (wait == 0 && user.getUsername() != null) {
+            wait = loginThrottle.checkUsername(user.getUsername());
+        }
+        if (wait > 0) {
+            return LoginThrottle.tooManyRequests(wait);
+        }
+
+        TokenPair tokens = userService.login(user);
+        if (tokens == null) {
+            if (user.getUsername() != null) {
+                loginThrottle.recordFailure(user.getUsername());
+            }
             return new ResponseEntity<>("Bad request.", HttpStatus.BAD_REQUEST);
         } else {
-            return new ResponseEntity<>("bearer:" + token, HttpStatus.OK);
+            return toTokenResponse(tokens);
         }
     }
 
+    /**
+     * Exchanges a refresh token for a new access token.
+     * This method receives the refresh token in the `X-Refresh-Token` header and delegates to `userService.refresh`.
+     * Refresh tokens rotate: every successful refresh returns a new access token in the body and a new refresh token
+     * in the `X-Refresh-Token` header, and the presented refresh token can not be used again. Unknown, reused or
+     * expired refresh tokens get HTTP 401 (Unauthorized).
+     *
+     * @param refreshToken - The refresh token issued by the last login or refresh.
+     * @param request - The HTTP request, used to identify the client.
+     * @return ResponseEntity - A response entity containing the new JWT token with a "bearer:" prefix if the refresh
+     *         token is valid or an error message if it is not.
+     */
+
+    @PostMapping("/token/refresh")
+    public ResponseEntity<String> refresh(@RequestHeader(REFRESH_TOKEN_HEADER) String refreshToken, HttpServletRequest request) {
+        long wait = loginThrottle.acquireForClient(clientAddress(request));
+        if (wait > 0) {
+            return LoginThrottle.tooManyRequests(wait);
+        }
+
+        TokenPair tokens = userService.refresh(refreshToken);
+        if (tokens == null) {
+            return new ResponseEntity<>("Unauthorized.", HttpStatus.UNAUTHORIZED);
+        }
+        return toTokenResponse(tokens);
+    }
+
+    private ResponseEntity<String> toTokenResponse(TokenPair tokens) {
+        return ResponseEntity.ok()
+                .header(REFRESH_TOKEN_HEADER, tokens.refreshToken())
+                .body("bearer:" + tokens.accessToken());
+    }
+
     /**
      * Logs out the user by invalidating their JWT token.
      * This method retrieves the currently authenticated user's username from the SecurityContext and calls the
@@ -88,4 +170,20 @@ public class UserController {
             return new ResponseEntity<>("Unauthorized.", HttpStatus.UNAUTHORIZED);
         }
     }
+
+    /**
+     * Answers requests that could not be served because the password hashing executor is saturated.
+     * This method returns HTTP 503 (Service Unavailable) with a `Retry-After` header, so clients back off instead of
+     * piling more work onto the hashing threads.
+     *
+     * @param e - The exception thrown when the hashing job was rejected.
+     * @return ResponseEntity - A response entity with HTTP 503 (Service Unavailable).
+     */
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> passwordHashingUnavailable(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Service unavailable.");
+    }
 }
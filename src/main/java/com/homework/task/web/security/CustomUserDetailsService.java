@@ -1,8 +1,11 @@
 package com.homework.task.web.security;
 
+import com.homework.task.cache.ExpiringCache;
+import com.homework.task.database.repositories.UserIdResolver;
 import com.homework.task.database.repositories.UserRepository;
 import com.homework.task.database.templates.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -15,17 +18,34 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
 
+    private final UserIdResolver userIdResolver;
+
+    /**
+     * A bounded cache of already loaded principals.
+     * Every authenticated request resolves its principal through this service, so caching the result keeps the
+     * authentication path off the 'users' table under steady load. Entries expire after the configured time to live
+     * and are evicted explicitly whenever the underlying user changes.
+     */
+    private final ExpiringCache<String, UserDetails> principalCache;
+
     /**
      * Constructs a CustomUserDetailsService with the specified user repository.
      * This constructor initializes the service with the `UserRepository`, which is used to fetch user information
      * from the database. The `userRepository` is injected through Spring's dependency injection mechanism.
      *
      * @param userRepository - The repository used to interact with the user data in the database.
+     * @param userIdResolver - The resolver that is told the ID of every loaded user.
+     * @param cacheMaxSize - The maximum number of principals kept in memory.
+     * @param cacheTtlSeconds - The number of seconds a cached principal stays valid.
      */
 
     @Autowired
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, UserIdResolver userIdResolver,
+                                    @Value("${security.principal-cache.max-size:10000}") int cacheMaxSize,
+                                    @Value("${security.principal-cache.ttl-seconds:300}") long cacheTtlSeconds) {
         this.userRepository = userRepository;
+        this.userIdResolver = userIdResolver;
+        this.principalCache = new ExpiringCache<>(cacheMaxSize, cacheTtlSeconds * 1000);
     }
 
     /**
@@ -41,9 +61,72 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserDetails cached = principalCache.get(username);
+        if (cached != null) {
+            return cached;
+        }
+
         // Fetch user from the database
         User user = userRepository.findByUsername(username);
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found: " + username);
+        }
+
+        // The principal already carries the user ID, so task queries of this request do not have to look it up
+        userIdResolver.remember(user.getUsername(), user.getId());
+
+        UserDetails userDetails = toUserDetails(user);
+        principalCache.put(username, userDetails);
+        return userDetails;
+    }
+
+    /**
+     * Retrieves a principal only if it is cached, without reading the database.
+     *
+     * @param username - The username of the principal.
+     * @return UserDetails - The cached principal, or null if it is not cached.
+     */
+
+    public UserDetails getCachedUser(String username) {
+        return principalCache.get(username);
+    }
+
+    /**
+     * Evicts a cached principal.
+     * This method must be called whenever a user is created or logs out, so that the next request
+     * reloads the principal from the database instead of using stale data.
+     *
+     * @param username - The username of the principal to evict.
+     */
+
+    public void evictUser(String username) {
+        principalCache.invalidate(username);
+    }
+
+    public long getCacheHits() {
+        return principalCache.getHits();
+    }
+
+    public long getCacheMisses() {
+        return principalCache.getMisses();
+    }
+
+    public long getCacheEvictions() {
+        return principalCache.getEvictions();
+    }
+
+    public int getCacheSize() {
+        return principalCache.size();
+    }
+
+    /**
+     * Converts a stored user into a Spring Security principal.
+     *
+     * @param user - The user loaded from the database.
+     * @return UserDetails - A `UserDetails` object containing user information such as username, password, roles, and account status.
+     */
 
+    private UserDetails toUserDetails(User user) {
         // Create a UserDetails object without exposing the password directly
         return new org.springframework.security.core.userdetails.User(
                 user.getUsername(),
@@ -0,0 +1,70 @@
+package com.homework.task.web.security;
+
+/**
+ * Table-driven hexadecimal codec.
+ * Encoding looks up both characters of a byte in a constant table and decoding maps characters back through a
+ * 128-entry table, so neither direction creates intermediate strings.
+ */
+public final class Hex {
+
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        java.util.Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            VALUES['a' + i] = (byte) (10 + i);
+            VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private Hex() {
+    }
+
+    /**
+     * Converts a byte array into a lowercase hexadecimal string.
+     *
+     * @param bytes - The byte array to convert.
+     * @return String - A string representing the byte array in hexadecimal format.
+     */
+
+    public static String encode(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = DIGITS[(bytes[i] >> 4) & 0x0f];
+            chars[2 * i + 1] = DIGITS[bytes[i] & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Converts a hexadecimal string back into a byte array.
+     *
+     * @param hex - The hexadecimal string to convert.
+     * @throws IllegalArgumentException - If the string has an odd length or contains a non-hexadecimal character.
+     * @return byte[] - A byte array representing the hexadecimal string.
+     */
+
+    public static byte[] decode(CharSequence hex) {
+        int length = hex.length();
+        if ((length & 1) != 0) {
+            throw new IllegalArgumentException("Hex string must have an even length");
+        }
+        byte[] data = new byte[length / 2];
+        for (int i = 0; i < length; i += 2) {
+            data[i / 2] = (byte) ((value(hex.charAt(i)) << 4) | value(hex.charAt(i + 1)));
+        }
+        return data;
+    }
+
+    private static int value(char c) {
+        int value = c < 128 ? VALUES[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid hex character: " + c);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,125 @@
+package com.homework.task.web.security;
+
+import com.homework.task.ratelimit.TokenBucketRateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class LoginThrottle {
+
+    private final TokenBucketRateLimiter clientLimiter;
+    private final TokenBucketRateLimiter usernameLimiter;
+
+    private final LongAdder throttledClients = new LongAdder();
+    private final LongAdder throttledUsernames = new LongAdder();
+
+    /**
+     * Constructs the throttle for the public authentication endpoints.
+     * Every request to `/login` and `/register` takes a permit from the bucket of the client address. Failed logins
+     * additionally take a permit from the bucket of the username, and once that bucket is empty further logins for
+     * the username are refused before any password is hashed.
+     *
+     * @param clientCapacity - The number of requests a client address may make in a burst.
+     * @param clientPermitsPerMinute - The sustained request rate of a client address.
+     * @param usernameCapacity - The number of failed logins a username may have in a burst.
+     * @param usernamePermitsPerMinute - The sustained rate of failed logins of a username.
+     * @param maxKeys - The maximum number of client addresses and usernames tracked by each limiter.
+     */
+
+    public LoginThrottle(@Value("${security.login.rate-limit.client.capacity:100}") int clientCapacity,
+                         @Value("${security.login.rate-limit.client.permits-per-minute:600}") double clientPermitsPerMinute,
+                         @Value("${security.login.rate-limit.username.capacity:5}") int usernameCapacity,
+                         @Value("${security.login.rate-limit.username.permits-per-minute:1}") double usernamePermitsPerMinute,
+                         @Value("${security.login.rate-limit.max-keys:100000}") int maxKeys) {
+        this.clientLimiter = new TokenBucketRateLimiter(clientCapacity, clientPermitsPerMinute, maxKeys);
+        this.usernameLimiter = new TokenBucketRateLimiter(usernameCapacity, usernamePermitsPerMinute, maxKeys);
+    }
+
+    /**
+     * Takes a permit for a request from the given client address.
+     *
+     * @param clientAddress - The address of the client.
+     * @return long - 0 if the request may proceed, otherwise the number of nanoseconds the client has to wait.
+     */
+
+    public long acquireForClient(String clientAddress) {
+        long wait = clientLimiter.tryAcquire(clientAddress);
+        if (wait > 0) {
+            throttledClients.increment();
+        }
+        return wait;
+    }
+
+    /**
+     * Checks whether logins for the given username are currently refused.
+     *
+     * @param username - The username of the login attempt.
+     * @return long - 0 if the login may proceed, otherwise the number of nanoseconds until it may be attempted again.
+     */
+
+    public long checkUsername(String username) {
+        long wait = usernameLimiter.waitTime(username);
+        if (wait > 0) {
+            throttledUsernames.increment();
+        }
+        return wait;
+    }
+
+    /**
+     * Records a failed login for the given username.
+     *
+     * @param username - The username of the failed login attempt.
+     */
+
+    public void recordFailure(String username) {
+        usernameLimiter.tryAcquire(username);
+    }
+
+    /**
+     * Builds the response for a request refused by the throttle.
+     * Both the servlet and the reactive controllers answer with it, so clients see the same status, header and body.
+     *
+     * @param waitNanos - The time until the client may retry in nanoseconds.
+     * @return ResponseEntity - A response entity with HTTP 429 (Too Many Requests) and a `Retry-After` header in seconds.
+     */
+
+    public static ResponseEntity<String> tooManyRequests(long waitNanos) {
+        long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter))
+                .body("Too many requests.");
+    }
+
+    /**
+     * Drops the buckets of clients and usernames that have been idle long enough to be full again.
+     */
+
+    @Scheduled(fixedDelayString = "${security.login.rate-limit.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        clientLimiter.evictIdle();
+        usernameLimiter.evictIdle();
+    }
+
+    public long getThrottledClients() {
+        return throttledClients.sum();
+    }
+
+    public long getThrottledUsernames() {
+        return throttledUsernames.sum();
+    }
+
+    public int getTrackedClients() {
+        return clientLimiter.size();
+    }
+
+    public int getTrackedUsernames() {
+        return usernameLimiter.size();
+    }
+}
@@ -0,0 +1,109 @@
+package com.homework.task.web.security;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * Constructs a bounded executor for password hashing and verification.
+     * Key derivation is deliberately expensive, so it runs on a small dedicated pool instead of the request threads.
+     * When the pool and its queue are full, work is rejected right away, which keeps a burst of logins from tying up
+     * the threads that serve the rest of the API.
+     *
+     * @param threads - The number of hashing threads, or 0 to use the number of available processors.
+     * @param queueCapacity - The number of hashing jobs that may wait for a free thread.
+     * @param timeoutMillis - How long a caller waits for its result before giving up.
+     */
+
+    public PasswordHashingExecutor(@Value("${security.password.executor.threads:0}") int threads,
+                                   @Value("${security.password.executor.queue-capacity:64}") int queueCapacity,
+                                   @Value("${security.password.executor.timeout-ms:5000}") long timeoutMillis) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Runs a hashing job on the pool and waits for its result.
+     *
+     * @param job - The hashing or verification job.
+     * @throws RejectedExecutionException - If the pool is saturated or the job did not finish in time.
+     * @throws NoSuchAlgorithmException - If the job failed because a hashing algorithm is not available.
+     * @return T - The result of the job.
+     */
+
+    public <T> T execute(Callable<T> job) throws NoSuchAlgorithmException {
+        Future<T> future;
+        try {
+            future = executor.submit(job);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw e;
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejections.increment();
+            throw new RejectedExecutionException("Password hashing timed out", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof NoSuchAlgorithmException noSuchAlgorithm) {
+                throw noSuchAlgorithm;
+            } else if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,124 +1,131 @@
 package com.homework.task.web.security;
 
+import com.homework.task.web.security.interfaces.PasswordHasher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Component
 public class PasswordManager {
 
     /**
-     * Hashes the given password using a salt and the SHA-256 algorithm.
-     * This method generates a salt, hashes the password with the salt, and then returns a string containing
-     * the salt and the hashed password. The salt is encoded as a hexadecimal string, and the hashed password is
-     * Base64-encoded.
-     *
-     * @param password - The password to hash.
-     * @throws NoSuchAlgorithmException - If the hashing algorithm (SHA-256) or the salt generation algorithm (SHA1PRNG) is not available.
-     * @return String - A string containing the salt (hex) and the hashed password (Base64-encoded), separated by a colon.
+     * Shared generator for salts. `SecureRandom` is thread-safe, and seeding it once at class load keeps the
+     * (potentially blocking) seeding off the request path.
      */
+    private static final SecureRandom RANDOM = new SecureRandom();
 
-    public static String hashPassword(String password) throws NoSuchAlgorithmException {
-
-        byte[] salt = generateSalt();
-        byte[] hashedPassword = hash(password, salt);
+    static {
+        RANDOM.nextBytes(new byte[16]);
+    }
 
-        String saltAsString = bytesToHex(salt);
-        String hashedPasswordAsString = Base64.getEncoder().encodeToString(hashedPassword);
+    private final Map<String, PasswordHasher> hashers;
+    private final PasswordHasher preferredHasher;
 
-        return saltAsString + ":" + hashedPasswordAsString;
-    }
+    private volatile StoredCredential dummyCredential;
 
     /**
-     * Generates a random salt using the SHA1PRNG algorithm.
-     * This method generates a 16-byte salt that is used in password hashing to add randomness and increase security.
+     * Constructs a PasswordManager with the available password hashers.
+     * New passwords are always hashed with the preferred hasher; the others are only used to verify passwords that
+     * were stored before the preferred hasher (or its cost) changed.
      *
-     * @throws NoSuchAlgorithmException - If the SHA1PRNG algorithm is not available.
-     * @return byte[]- A 16-byte salt.
+     * @param hashers - All registered password hashers.
+     * @param algorithm - The ID of the hasher used for new passwords.
      */
 
-    private static byte[] generateSalt() throws NoSuchAlgorithmException {
-        SecureRandom sr = SecureRandom.getInstance("SHA1PRNG");
-        byte[] salt = new byte[16];  // 16 bytes salt
-        sr.nextBytes(salt);
-        return salt;
+    public PasswordManager(List<PasswordHasher> hashers,
+                           @Value("${security.password.algorithm:pbkdf2-sha256}") String algorithm) {
+        this.hashers = hashers.stream().collect(Collectors.toMap(PasswordHasher::getId, Function.identity()));
+        this.preferredHasher = this.hashers.get(algorithm);
+        if (preferredHasher == null) {
+            throw new IllegalArgumentException("Unknown password hashing algorithm: " + algorithm);
+        }
     }
 
     /**
-     * Hashes the given password with the provided salt using the SHA-256 algorithm.
-     * This method uses SHA-256 to hash the password, incorporating the provided salt into the hashing process.
+     * Hashes the given password using a fresh salt and the preferred hasher.
      *
      * @param password - The password to hash.
-     * @param salt - The salt to use in the hashing process.
-     * @throws NoSuchAlgorithmException - If the hashing algorithm (SHA-256) is not available.
-     * @return byte[] - A byte array containing the hashed password.
+     * @throws NoSuchAlgorithmException - If the hashing algorithm is not available.
+     * @return StoredCredential - The salt and hashed password together with the algorithm and cost that produced it.
      */
 
-    private static byte[] hash(String password, byte[] salt) throws NoSuchAlgorithmException {
-        MessageDigest md = MessageDigest.getInstance("SHA-256");
-        md.update(salt);
-        return md.digest(password.getBytes());
+    public StoredCredential hashPassword(String password) throws NoSuchAlgorithmException {
+        byte[] salt = generateSalt();
+        int cost = preferredHasher.getCost();
+        return new StoredCredential(preferredHasher.getId(), cost, salt, preferredHasher.hash(password, salt, cost));
     }
 
     /**
-     * Converts a byte array into a hexadecimal string.
-     * This method takes a byte array and converts each byte into its corresponding two-character hexadecimal
-     * representation, resulting in a string of hexadecimal characters.
+     * Generates a random 16-byte salt with the shared `SecureRandom`.
      *
-     * @param bytes - The byte array to convert.
-     * @return String - A string representing the byte array in hexadecimal format.
+     * @return byte[]- A 16-byte salt.
      */
 
-    private static String bytesToHex(byte[] bytes) {
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : bytes) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) {
-                hexString.append('0');
-            }
-            hexString.append(hex);
-        }
-        return hexString.toString();
+    private static byte[] generateSalt() {
+        byte[] salt = new byte[16];  // 16 bytes salt
+        RANDOM.nextBytes(salt);
+        return salt;
     }
 
     /**
-     * Converts a hexadecimal string back into a byte array.
-     * This method takes a string containing hexadecimal characters and converts it into a byte array,
-     * effectively reversing the conversion done by `bytesToHex`.
+     * Verifies if the given password matches the stored credential.
+     * This method hashes the provided password with the salt, algorithm and cost recorded in the credential and
+     * compares the result in constant time.
      *
-     * @param hex - The hexadecimal string to convert.
-     * @return byte[] - A byte array representing the hexadecimal string.
+     * @param password - The password to verify.
+     * @param credential - The stored credential.
+     * @throws NoSuchAlgorithmException - If the hashing algorithm is not available.
+     * @return boolean - True if the provided password matches the stored hashed password, false otherwise.
      */
 
-    private static byte[] hexToBytes(String hex) {
-        int len = hex.length();
-        byte[] data = new byte[len / 2];
-        for (int i = 0; i < len; i += 2) {
-            data[i / 2] = (byte) ((Character.digit(hex.charAt(i), 16) << 4)
-                    + Character.digit(hex.charAt(i+1), 16));
+    public boolean verifyPassword(String password, StoredCredential credential) throws NoSuchAlgorithmException {
+        PasswordHasher hasher = hashers.get(credential.algorithm());
+        if (hasher == null) {
+            return false;
         }
-        return data;
+        byte[] hashedPassword = hasher.hash(password, credential.salt(), credential.cost());
+        return MessageDigest.isEqual(hashedPassword, credential.hash());
     }
 
     /**
-     * Verifies if the given password matches the stored hashed password.
-     * This method splits the stored hash into the salt and hashed password components. It then hashes the provided
-     * password using the same salt and compares it with the stored hashed password to verify if they match.
+     * Verifies a password against a fixed credential that belongs to no user, and always fails.
+     * Logins for unknown usernames go through this method, so they take as long as a wrong password for an existing
+     * user and the response time does not reveal which usernames exist. The credential is hashed with the preferred
+     * hasher once, on first use.
      *
      * @param password - The password to verify.
-     * @param storedHash - The stored hash containing the salt and hashed password (salt:hashedPassword).
-     * @throws NoSuchAlgorithmException - If the hashing algorithm (SHA-256) or the salt generation algorithm (SHA1PRNG) is not available.
-     * @return boolean - True if the provided password matches the stored hashed password, false otherwise.
+     * @throws NoSuchAlgorithmException - If the hashing algorithm is not available.
+     * @return boolean - Always false.
      */
 
-    public static boolean verifyPassword(String password, String storedHash) throws NoSuchAlgorithmException {
-        String[] parts = storedHash.split(":");
-        byte[] salt = hexToBytes(parts[0]);
-        byte[] storedHashedPassword = Base64.getDecoder().decode(parts[1]);
+    public boolean verifyDummyPassword(String password) throws NoSuchAlgorithmException {
+        StoredCredential credential = dummyCredential;
+        if (credential == null) {
+            credential = hashPassword(Hex.encode(generateSalt()));
+            dummyCredential = credential;
+        }
+        verifyPassword(password, credential);
+        return false;
+    }
 
-        byte[] hashedPassword = hash(password, salt);
+    /**
+     * Checks whether a stored credential should be replaced on the next successful login.
+     * That is the case when it was produced by another algorithm than the preferred one, or with a lower cost
+     * than the one currently configured.
+     *
+     * @param credential - The stored credential.
+     * @return boolean - True if the password should be re-hashed, false otherwise.
+     */
 
-        return MessageDigest.isEqual(hashedPassword, storedHashedPassword);
+    public boolean needsRehash(StoredCredential credential) {
+        return !credential.algorithm().equals(preferredHasher.getId()) || credential.cost() < preferredHasher.getCost();
     }
 
 }
@@ -0,0 +1,57 @@
+package com.homework.task.web.security;
+
+import com.homework.task.web.security.jwt.JwtUtility;
+import com.homework.task.web.security.jwt.JwtWebFilter;
+import com.homework.task.web.security.jwt.TokenGenerations;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+    /**
+     * Configures the security filter chain of the reactive stack.
+     * The rules mirror `SecurityConfig`: CSRF, basic auth, form login and Spring's logout handling are disabled, no
+     * security context is stored between requests, and every endpoint except the public ones requires a valid JWT.
+     * Unauthenticated requests get HTTP 403 (Forbidden), as on the servlet stack.
+     *
+     * @param http - The ServerHttpSecurity object used to configure security settings.
+     * @param jwtUtil - The utility used to verify tokens.
+     * @param userDetailsService - The service used to load user details by username.
+     * @param tokenGenerations - The current token generation of every user.
+     * @return SecurityWebFilterChain - The configured filter chain.
+     */
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, JwtUtility jwtUtil,
+                                                         CustomUserDetailsService userDetailsService,
+                                                         TokenGenerations tokenGenerations) {
+        http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable) // Disable CSRF for API-only setup
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance()) // Stateless
+                .authorizeExchange(exchanges -> exchanges
+                        .pathMatchers("/login", "/register", "/token/refresh", "/.well-known/jwks.json").permitAll() // Public endpoints
+                        .anyExchange().authenticated() // Secure all other endpoints
+                )
+                .addFilterAt(new JwtWebFilter(jwtUtil, userDetailsService, tokenGenerations),
+                        SecurityWebFiltersOrder.AUTHENTICATION) // JWT filter
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN)))
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable) // Disable basic auth
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable) // Disable form login
+                .logout(ServerHttpSecurity.LogoutSpec::disable);      // Disable Spring handled logout
+
+        return http.build();
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.homework.task.web.security;
+
+import com.homework.task.web.security.hashers.Sha256PasswordHasher;
+
+import java.util.Base64;
+
+/**
+ * A parsed password hash as it is stored for a user.
+ * The `salt` column holds the hex-encoded salt and the `password` column holds `algorithm$cost$hash` with a
+ * Base64-encoded hash; hashes from before the algorithm was recorded consist of the Base64 hash only and belong to
+ * the legacy SHA-256 scheme.
+ *
+ * @param algorithm - The ID of the hasher that produced the hash.
+ * @param cost - The cost the hash was produced with.
+ * @param salt - The salt.
+ * @param hash - The hashed password.
+ */
+public record StoredCredential(String algorithm, int cost, byte[] salt, byte[] hash) {
+
+    /**
+     * Parses the stored columns of a user.
+     *
+     * @param salt - The hex-encoded salt.
+     * @param password - The encoded password hash.
+     * @throws IllegalArgumentException - If the columns are not a valid stored credential.
+     * @return StoredCredential - The parsed credential.
+     */
+
+    public static StoredCredential parse(String salt, String password) {
+        int first = password.indexOf('$');
+        if (first < 0) {
+            return new StoredCredential(Sha256PasswordHasher.ID, 1, Hex.decode(salt), Base64.getDecoder().decode(password));
+        }
+        int second = password.indexOf('$', first + 1);
+        if (second < 0) {
+            throw new IllegalArgumentException("Malformed password hash");
+        }
+        return new StoredCredential(
+                password.substring(0, first),
+                Integer.parseInt(password, first + 1, second, 10),
+                Hex.decode(salt),
+                Base64.getDecoder().decode(password.substring(second + 1)));
+    }
+
+    /**
+     * @return String - The value of the `salt` column.
+     */
+
+    public String encodedSalt() {
+        return Hex.encode(salt);
+    }
+
+    /**
+     * @return String - The value of the `password` column.
+     */
+
+    public String encodedHash() {
+        return algorithm + "$" + cost + "$" + Base64.getEncoder().encodeToString(hash);
+    }
+}
@@ -0,0 +1,71 @@
+package com.homework.task.web.security.hashers;
+
+import com.homework.task.web.security.interfaces.PasswordHasher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+
+@Component
+public class Pbkdf2PasswordHasher implements PasswordHasher {
+
+    public static final String ID = "pbkdf2-sha256";
+
+    private static final int KEY_LENGTH = 256;
+
+    private static final ThreadLocal<SecretKeyFactory> KEY_FACTORY = ThreadLocal.withInitial(() -> {
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("PBKDF2WithHmacSHA256 is not available", e);
+        }
+    });
+
+    private final int iterations;
+
+    /**
+     * Constructs a PBKDF2 (HMAC-SHA256) password hasher.
+     *
+     * @param iterations - The number of iterations used for new hashes.
+     */
+
+    public Pbkdf2PasswordHasher(@Value("${security.password.pbkdf2.iterations:310000}") int iterations) {
+        this.iterations = iterations;
+    }
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public int getCost() {
+        return iterations;
+    }
+
+    /**
+     * Derives a 256-bit key from the password and salt with PBKDF2WithHmacSHA256.
+     * The `SecretKeyFactory` is cached per thread, so no provider lookup happens per call.
+     *
+     * @param password - The password to hash.
+     * @param salt - The salt to use in the hashing process.
+     * @param cost - The number of iterations.
+     * @throws NoSuchAlgorithmException - If PBKDF2WithHmacSHA256 is not available.
+     * @return byte[] - The derived key.
+     */
+
+    @Override
+    public byte[] hash(String password, byte[] salt, int cost) throws NoSuchAlgorithmException {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, cost, KEY_LENGTH);
+        try {
+            return KEY_FACTORY.get().generateSecret(spec).getEncoded();
+        } catch (InvalidKeySpecException e) {
+            throw new IllegalStateException("Invalid PBKDF2 parameters", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.homework.task.web.security.hashers;
+
+import com.homework.task.web.security.interfaces.PasswordHasher;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The original single-round salted SHA-256 scheme.
+ * It is only kept to verify passwords stored before the switch to a key derivation function; such passwords are
+ * re-hashed with the preferred hasher on the next successful login.
+ */
+@Component
+public class Sha256PasswordHasher implements PasswordHasher {
+
+    public static final String ID = "sha256";
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public int getCost() {
+        return 1;
+    }
+
+    @Override
+    public byte[] hash(String password, byte[] salt, int cost) throws NoSuchAlgorithmException {
+        MessageDigest md = SHA_256.get();
+        md.update(salt);
+        return md.digest(password.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,17 @@
+package com.homework.task.web.security.interfaces;
+
+import java.security.NoSuchAlgorithmException;
+
+public interface PasswordHasher {
+    /**
+     * The identifier stored with every hash produced by this hasher, so the hash can be verified later on.
+     */
+    String getId();
+
+    /**
+     * The cost (e.g. number of iterations) used for new hashes.
+     */
+    int getCost();
+
+    byte[] hash(String password, byte[] salt, int cost) throws NoSuchAlgorithmException;
+}
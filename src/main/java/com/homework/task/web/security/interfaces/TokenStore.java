@@ -3,6 +3,29 @@ package com.homework.task.web.security.interfaces;
 import java.util.Optional;
 
 public interface TokenStore {
-    void saveToken(String username, String token, long expiryTime);
-    Optional<String> getToken(String username);
+    /**
+     * Stores the refresh token of a user, replacing any previous one.
+     * Implementations only need to keep a digest of the refresh token.
+     *
+     * @param username - Username with which the refresh token is associated.
+     * @param refreshToken - The refresh token to store.
+     * @param expiryTime - Lifetime of the refresh token in seconds.
+     */
+    void saveRefreshToken(String username, String refreshToken, long expiryTime);
+
+    /**
+     * Removes a refresh token and returns the user it belonged to.
+     * A refresh token can be consumed only once, which is what makes rotation detect reuse.
+     *
+     * @param refreshToken - The refresh token presented by the client.
+     * @return Optional<String> - The username, or an empty optional if the token is unknown, already used or expired.
+     */
+    Optional<String> consumeRefreshToken(String refreshToken);
+
+    void removeRefreshToken(String username);
+
+    /**
+     * Drops all tokens whose lifetime has passed.
+     */
+    void purgeExpired();
 }
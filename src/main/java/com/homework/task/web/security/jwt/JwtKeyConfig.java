@@ -0,0 +1,44 @@
+package com.homework.task.web.security.jwt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+
+@Configuration
+public class JwtKeyConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtKeyConfig.class);
+
+    /**
+     * Provides the token signing keys.
+     * The keys are loaded from the configured key store. Without a key store, a throwaway key pair is generated,
+     * which is fine for a single development instance but invalidates all tokens on restart.
+     *
+     * @param path - The path of the key store, empty to generate a throwaway key pair.
+     * @param type - The type of the key store.
+     * @param password - The password of the key store and its keys.
+     * @param activeAlias - The alias of the key used to sign new tokens.
+     * @throws IOException - If the key store cannot be read.
+     * @throws GeneralSecurityException - If the key store cannot be decrypted or the active key is missing.
+     * @return JwtKeys - The token signing keys.
+     */
+
+    @Bean
+    public JwtKeys jwtKeys(@Value("${security.jwt.keystore.path:}") String path,
+                           @Value("${security.jwt.keystore.type:PKCS12}") String type,
+                           @Value("${security.jwt.keystore.password:}") String password,
+                           @Value("${security.jwt.keystore.active-alias:}") String activeAlias)
+            throws IOException, GeneralSecurityException {
+        if (path.isEmpty()) {
+            log.warn("No token key store configured, signing tokens with a throwaway key pair");
+            return JwtKeys.ephemeral();
+        }
+        return JwtKeys.load(Path.of(path), type, password.toCharArray(), activeAlias);
+    }
+}
@@ -0,0 +1,193 @@
+package com.homework.task.web.security.jwt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.EdECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The keys used to sign and verify tokens.
+ * Tokens are signed with the private key of the active key ID (`kid`) and verified with the public key named by the
+ * `kid` header of the token. Rotating keys means adding a new key pair to the key store, making it active, and keeping
+ * the retired public keys around until the last token signed with them has expired. Every node loads the same key
+ * store, so tokens issued by one node are accepted by all of them.
+ * Supported keys are EC keys on P-256 (`ES256`) and Ed25519 keys (`EdDSA`).
+ */
+public class JwtKeys {
+
+    private final Map<String, PublicKey> verificationKeys;
+    private final String activeKeyId;
+    private final PrivateKey signingKey;
+
+    private JwtKeys(Map<String, PublicKey> verificationKeys, String activeKeyId, PrivateKey signingKey) {
+        this.verificationKeys = Collections.unmodifiableMap(verificationKeys);
+        this.activeKeyId = activeKeyId;
+        this.signingKey = signingKey;
+    }
+
+    /**
+     * Loads the keys from a key store.
+     * Every key entry and every trusted certificate entry of the store becomes a verification key under its alias;
+     * only the private key of the active alias is used for signing.
+     *
+     * @param path - The path of the key store.
+     * @param type - The type of the key store, e.g. PKCS12.
+     * @param password - The password of the key store and its keys.
+     * @param activeAlias - The alias of the key entry used to sign new tokens.
+     * @throws IOException - If the key store cannot be read.
+     * @throws GeneralSecurityException - If the key store cannot be decrypted or the active key is missing.
+     * @return JwtKeys - The loaded keys.
+     */
+
+    public static JwtKeys load(Path path, String type, char[] password, String activeAlias)
+            throws IOException, GeneralSecurityException {
+        KeyStore keyStore = KeyStore.getInstance(type);
+        try (InputStream in = Files.newInputStream(path)) {
+            keyStore.load(in, password);
+        }
+
+        Map<String, PublicKey> verificationKeys = new LinkedHashMap<>();
+        Enumeration<String> aliases = keyStore.aliases();
+        while (aliases.hasMoreElements()) {
+            String alias = aliases.nextElement();
+            Certificate certificate = keyStore.getCertificate(alias);
+            if (certificate != null) {
+                verificationKeys.put(alias, checkSupported(certificate.getPublicKey()));
+            }
+        }
+
+        Key key = keyStore.getKey(activeAlias, password);
+        if (!(key instanceof PrivateKey privateKey) || !verificationKeys.containsKey(activeAlias)) {
+            throw new GeneralSecurityException("Key store " + path + " has no private key with alias " + activeAlias);
+        }
+        return new JwtKeys(verificationKeys, activeAlias, privateKey);
+    }
+
+    /**
+     * Generates a throwaway P-256 key pair that only lives as long as the process.
+     * Tokens signed with it cannot be verified by other nodes or after a restart.
+     *
+     * @return JwtKeys - Keys holding the generated key pair.
+     */
+
+    public static JwtKeys ephemeral() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            KeyPair keyPair = generator.generateKeyPair();
+            String keyId = "ephemeral-" + UUID.randomUUID();
+            Map<String, PublicKey> verificationKeys = new LinkedHashMap<>();
+            verificationKeys.put(keyId, keyPair.getPublic());
+            return new JwtKeys(verificationKeys, keyId, keyPair.getPrivate());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not generate an EC key pair", e);
+        }
+    }
+
+    private static PublicKey checkSupported(PublicKey key) throws GeneralSecurityException {
+        if (key instanceof ECPublicKey ecKey && ecKey.getParams().getCurve().getField().getFieldSize() == 256) {
+            return key;
+        }
+        if (key instanceof EdECPublicKey edKey && "Ed25519".equals(edKey.getParams().getName())) {
+            return key;
+        }
+        throw new GeneralSecurityException("Unsupported token signing key: " + key.getAlgorithm());
+    }
+
+    /**
+     * @return String - The JWS algorithm of the active key, `ES256` or `EdDSA`.
+     */
+
+    public String getAlgorithm() {
+        return signingKey.getAlgorithm().equals("EC") ? "ES256" : "EdDSA";
+    }
+
+    /**
+     * @return String - The name of the JCA signature algorithm matching `getAlgorithm`. ECDSA signatures are produced
+     *                  in the fixed-length R || S format that JWS expects instead of DER.
+     */
+
+    public String getSignatureAlgorithm() {
+        return signingKey.getAlgorithm().equals("EC") ? "SHA256withECDSAinP1363Format" : "Ed25519";
+    }
+
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    public PrivateKey getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * Retrieves the public key for a key ID.
+     *
+     * @param keyId - The `kid` header of a token.
+     * @return PublicKey - The public key, or null if the key ID is unknown.
+     */
+
+    public PublicKey getVerificationKey(String keyId) {
+        return keyId == null ? null : verificationKeys.get(keyId);
+    }
+
+    /**
+     * Describes the verification keys as a JSON Web Key Set (RFC 7517).
+     *
+     * @return List<Map<String, String>> - One JSON Web Key per verification key.
+     */
+
+    public List<Map<String, String>> toJwks() {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return verificationKeys.entrySet().stream().map(entry -> {
+            Map<String, String> jwk = new LinkedHashMap<>();
+            jwk.put("kid", entry.getKey());
+            jwk.put("use", "sig");
+            if (entry.getValue() instanceof ECPublicKey ecKey) {
+                jwk.put("kty", "EC");
+                jwk.put("alg", "ES256");
+                jwk.put("crv", "P-256");
+                jwk.put("x", encoder.encodeToString(toFixedLength(ecKey.getW().getAffineX(), 32)));
+                jwk.put("y", encoder.encodeToString(toFixedLength(ecKey.getW().getAffineY(), 32)));
+            } else {
+                // The X.509 encoding of an Ed25519 key ends with the 32 raw key bytes
+                byte[] encoded = entry.getValue().getEncoded();
+                jwk.put("kty", "OKP");
+                jwk.put("alg", "EdDSA");
+                jwk.put("crv", "Ed25519");
+                jwk.put("x", encoder.encodeToString(Arrays.copyOfRange(encoded, encoded.length - 32, encoded.length)));
+            }
+            return jwk;
+        }).toList();
+    }
+
+    private static byte[] toFixedLength(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length == length) {
+            return bytes;
+        }
+        byte[] fixed = new byte[length];
+        int copied = Math.min(bytes.length, length);
+        System.arraycopy(bytes, bytes.length - copied, fixed, length - copied, copied);
+        return fixed;
+    }
+}
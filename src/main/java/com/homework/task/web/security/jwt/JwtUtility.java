@@ -1,36 +1,157 @@
 package com.homework.task.web.security.jwt;
 
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.homework.task.cache.ExpiringCache;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.util.Base64;
 import java.util.Date;
 
 @Component
 public class JwtUtility {
 
-    private final SecretKey SECRET_KEY = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String GENERATION_CLAIM = "gen";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final JwtKeys keys;
+
+    /**
+     * The parser used to verify tokens.
+     * Building a parser is not free, so it is built once and shared; `JwtParser` instances are immutable and thread-safe.
+     * The verification key is picked by the `kid` header of each token.
+     */
+    private final JwtParser parser;
+
+    /**
+     * The encoded header of every issued token. It only depends on the active key, so it is encoded once.
+     */
+    private final String encodedHeader;
+
+    /**
+     * Signature instances initialized with the signing key, one per thread.
+     * `Signature` is not thread-safe, but initializing one per token costs a provider lookup and a key setup.
+     */
+    private final ThreadLocal<Signature> signer;
+
+    /**
+     * A cache of already verified claims keyed by the token digest.
+     * A cached entry lives until the token expires, so repeated requests with the same token skip parsing
+     * and signature verification entirely.
+     */
+    private final ExpiringCache<TokenDigest, Claims> verifiedClaims;
+
+    private final long expirationMillis;
+
+    /**
+     * Constructs a JwtUtility with the given keys, token lifetime and claims cache size.
+     *
+     * @param keys - The keys used to sign and verify tokens.
+     * @param expirationMillis - The lifetime of generated tokens in milliseconds.
+     * @param claimsCacheSize - The maximum number of verified claims kept in memory.
+     */
+
+    public JwtUtility(JwtKeys keys,
+                      @Value("${security.jwt.expiration-ms:900000}") long expirationMillis,
+                      @Value("${security.jwt.claims-cache.max-size:10000}") int claimsCacheSize) {
+        this.keys = keys;
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        PublicKey key = keys.getVerificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new SignatureException("Unknown signing key");
+                        }
+                        return key;
+                    }
+                })
+                .build();
+        this.encodedHeader = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                ("{\"alg\":\"" + keys.getAlgorithm() + "\",\"kid\":\"" + keys.getActiveKeyId() + "\"}")
+                        .getBytes(StandardCharsets.UTF_8));
+        this.signer = ThreadLocal.withInitial(() -> {
+            try {
+                Signature signature = Signature.getInstance(keys.getSignatureAlgorithm());
+                signature.initSign(keys.getSigningKey());
+                return signature;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(keys.getSignatureAlgorithm() + " is not available", e);
+            }
+        });
+        this.expirationMillis = expirationMillis;
+        this.verifiedClaims = new ExpiringCache<>(claimsCacheSize, expirationMillis);
+    }
 
     /**
      * Generates a JWT token for the given username.
      * This method creates a JWT token that contains the username as the subject. It sets the issued timestamp
-     * and the expiration time to 10 hours from the current time. The token is signed using the HS256 algorithm
-     * with a secret key.
+     * and the expiration time to the configured token lifetime (15 minutes by default). The token is signed with the
+     * active private key (ES256 or EdDSA) and names that key in its `kid` header, so any node holding the public key
+     * can verify it. Every token carries a random ID (`jti`), so two tokens issued for the same user within the same
+     * second still differ. The ID of the user (`uid`) and their current token generation (`gen`) are included so that
+     * revocation can be checked without any per-token state (see `TokenGenerations`). The header is precomputed and
+     * the signature instance is reused, so issuing a token only encodes the claims and computes one signature.
      *
      * @param username - The username for which the JWT token is generated.
+     * @param userId - The ID of the user.
+     * @param generation - The current token generation of the user.
      * @return String - A string representing the generated JWT token.
      */
 
-    public String generateToken(String username) {
+    public String generateToken(String username, long userId, long generation) {
+        long now = System.currentTimeMillis();
+        long issuedAt = now / 1000;
+        long expiration = (now + expirationMillis) / 1000;
+
+        byte[] id = new byte[16];
+        RANDOM.nextBytes(id);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+        StringBuilder payload = new StringBuilder(96 + username.length())
+                .append("{\"jti\":\"").append(encoder.encodeToString(id))
+                .append("\",\"sub\":\"");
+        JsonStringEncoder.getInstance().quoteAsString(username, payload);
+        payload.append("\",\"").append(USER_ID_CLAIM).append("\":").append(userId)
+                .append(",\"").append(GENERATION_CLAIM).append("\":").append(generation)
+                .append(",\"iat\":").append(issuedAt)
+                .append(",\"exp\":").append(expiration)
+                .append('}');
+
+        String signingInput = encodedHeader + "."
+                + encoder.encodeToString(payload.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            Signature signature = signer.get();
+            signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + "." + encoder.encodeToString(signature.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign token", e);
+        }
+    }
+
+    /**
+     * Generates an opaque refresh token.
+     * Refresh tokens are 256 random bits without any claims; they are only meaningful to the `TokenStore` that
+     * keeps them.
+     *
+     * @return String - The Base64url-encoded refresh token.
+     */
 
-        return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10)) // 10 hours
-                .signWith(SignatureAlgorithm.HS256, SECRET_KEY)
-                .compact();
+    public String generateRefreshToken() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
     }
 
     /**
@@ -43,7 +164,55 @@ public class JwtUtility {
      */
 
     public String extractUsername(String token) {
-        return extractAllClaims(token).getSubject();
+        return verifyToken(token).getSubject();
+    }
+
+    /**
+     * Verifies the given JWT token and returns its claims.
+     * This method parses and verifies the token at most once for its whole lifetime: verified claims are cached
+     * under the token's digest until the token expires, and later calls with the same token are served from the cache.
+     * Callers should verify a token once per request and pass the returned claims around instead of the raw token.
+     *
+     * @param token - The JWT token to verify.
+     * @throws JwtException - If the token is malformed, expired or its signature is invalid.
+     * @return Claims - A `Claims` object containing all verified claims of the JWT token.
+     */
+
+    public Claims verifyToken(String token) {
+        TokenDigest digest = TokenDigest.of(token);
+        Claims claims = verifiedClaims.get(digest);
+        if (claims == null) {
+            claims = extractAllClaims(token);
+            verifiedClaims.put(digest, claims, claims.getExpiration().getTime());
+        }
+        return claims;
+    }
+
+    /**
+     * Returns the claims of a token that was already verified, without parsing or verifying it.
+     * This lets callers that must not block or spend CPU on signature checks (e.g. on an event loop) handle the
+     * common case of a token seen before and defer everything else to `verifyToken`.
+     *
+     * @param token - The JWT token.
+     * @return Claims - The cached claims of the token, or null if the token has not been verified yet or has expired.
+     */
+
+    public Claims cachedClaims(String token) {
+        return verifiedClaims.get(TokenDigest.of(token));
+    }
+
+    /**
+     * Validates already verified claims for the specified user details.
+     * This method checks if the subject of the claims matches the username of the user details and whether
+     * the token has expired, without parsing the token again.
+     *
+     * @param claims - The claims returned by `verifyToken`.
+     * @param userDetails - The user details used to verify the token's validity.
+     * @return boolean - True if the token is valid (username matches and token is not expired), false otherwise.
+     */
+
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date());
     }
 
     /**
@@ -57,8 +226,7 @@ public class JwtUtility {
      */
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return isTokenValid(verifyToken(token), userDetails);
     }
 
     /**
@@ -73,11 +241,7 @@ public class JwtUtility {
 
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts.parser()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return parser.parseClaimsJws(token).getBody();
         } catch (SignatureException e) {
             throw new SignatureException("Invalid JWT signature", e);
         }
@@ -93,7 +257,27 @@ public class JwtUtility {
      * @return boolean - True if the token is expired, false otherwise.
      */
     public boolean isTokenExpired(String token) {
-        return extractAllClaims(token).getExpiration().before(new Date());
+        try {
+            return verifyToken(token).getExpiration().before(new Date());
+        } catch (ExpiredJwtException e) {
+            return true;
+        }
+    }
+
+    public JwtKeys getKeys() {
+        return keys;
+    }
+
+    public long getExpirationMillis() {
+        return expirationMillis;
+    }
+
+    public long getClaimsCacheHits() {
+        return verifiedClaims.getHits();
+    }
+
+    public long getClaimsCacheMisses() {
+        return verifiedClaims.getMisses();
     }
 
 }
@@ -0,0 +1,140 @@
+package com.homework.task.web.security.jwt;
+
+import com.homework.task.web.security.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Optional;
+
+public class JwtWebFilter implements WebFilter {
+    private final JwtUtility jwtUtil;
+    private final CustomUserDetailsService userDetailsService;
+    private final TokenGenerations tokenGenerations;
+
+    /**
+     * Constructs a JwtWebFilter, the reactive counterpart of `JwtRequestFilter`.
+     * The filter is not a bean of its own; it is added to the reactive security chain by `ReactiveSecurityConfig`.
+     *
+     * @param jwtUtil - The utility class for managing JWT token operations.
+     * @param userDetailsService - The service used to load user details by username.
+     * @param tokenGenerations - The current token generation of every user.
+     */
+
+    public JwtWebFilter(JwtUtility jwtUtil, CustomUserDetailsService userDetailsService, TokenGenerations tokenGenerations) {
+        this.jwtUtil = jwtUtil;
+        this.userDetailsService = userDetailsService;
+        this.tokenGenerations = tokenGenerations;
+    }
+
+    /**
+     * Authenticates requests that carry a bearer token in the "Authorization" header.
+     * The checks are the same as in `JwtRequestFilter`. A token that was verified before, whose user's generation and
+     * principal are cached as well, is checked right on the calling event loop thread. Otherwise the signature check
+     * and the database reads run on the bounded elastic scheduler, and the request continues on the parallel scheduler
+     * so the rest of the chain does not run on a thread meant for blocking work.
+     * A valid token puts its authentication into the reactive security context, with the user ID from the token as
+     * details. A malformed, expired, wrongly signed or revoked token returns HTTP 401 (Unauthorized) with the same
+     * "Invalid token" reason as on the servlet stack.
+     *
+     * @param exchange - The current request and response.
+     * @param chain - The filter chain that continues the request processing.
+     * @return Mono<Void> - Completes when the request has been handled.
+     */
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        final String authorizationHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorizationHeader == null || !(authorizationHeader.startsWith("Bearer ") || authorizationHeader.startsWith("bearer "))) {
+            return chain.filter(exchange);
+        }
+
+        String jwt = authorizationHeader.substring(7);
+        Optional<Authentication> cached = authenticateFromCaches(jwt);
+        Mono<Optional<Authentication>> authentication = cached != null
+                ? Mono.just(cached)
+                : Mono.fromCallable(() -> authenticate(jwt))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .publishOn(Schedulers.parallel());
+        return authentication.flatMap(result -> result.isPresent()
+                ? chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(result.get()))
+                : Mono.error(new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid token")));
+    }
+
+    /**
+     * Authenticates a token using only cached state, so it is safe to call on the event loop.
+     *
+     * @param jwt - The token presented by the client.
+     * @return Optional<Authentication> - The authentication, an empty Optional if the token is rejected, or null if
+     *                                    the token, its generation or its principal is not cached and `authenticate`
+     *                                    has to be called instead.
+     */
+    private Optional<Authentication> authenticateFromCaches(String jwt) {
+        Claims claims = jwtUtil.cachedClaims(jwt);
+        if (claims == null) {
+            return null;
+        }
+        Number userId = claims.get(JwtUtility.USER_ID_CLAIM, Number.class);
+        Number generation = claims.get(JwtUtility.GENERATION_CLAIM, Number.class);
+        if (userId == null || generation == null) {
+            return Optional.empty();
+        }
+        long current = tokenGenerations.cached(userId.longValue());
+        UserDetails userDetails = userDetailsService.getCachedUser(claims.getSubject());
+        if (current < 0 || userDetails == null || generation.longValue() > current) {
+            // A newer generation may have been started on another node, so it has to be read from the database
+            return null;
+        }
+        if (generation.longValue() < current) {
+            // The token was issued before the user's tokens were last revoked
+            return Optional.empty();
+        }
+        return toAuthentication(claims, userDetails);
+    }
+
+    private Optional<Authentication> authenticate(String jwt) {
+        Claims claims;
+        try {
+            claims = jwtUtil.verifyToken(jwt);
+        } catch (JwtException e) {
+            return Optional.empty();
+        }
+        if (!tokenGenerations.isCurrent(claims)) {
+            // The token was issued before the user's tokens were last revoked
+            return Optional.empty();
+        }
+
+        UserDetails userDetails;
+        try {
+            userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        } catch (UsernameNotFoundException e) {
+            // The token belongs to a user that no longer exists
+            return Optional.empty();
+        }
+        return toAuthentication(claims, userDetails);
+    }
+
+    private Optional<Authentication> toAuthentication(Claims claims, UserDetails userDetails) {
+        if (!jwtUtil.isTokenValid(claims, userDetails)) {
+            return Optional.empty();
+        }
+
+        UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+                userDetails, null, userDetails.getAuthorities());
+        // Both callers already checked that the claim is present
+        authenticationToken.setDetails(claims.get(JwtUtility.USER_ID_CLAIM, Number.class).longValue());
+        return Optional.of(authenticationToken);
+    }
+}
@@ -0,0 +1,63 @@
+package com.homework.task.web.security.jwt;
+
+import com.homework.task.web.security.Hex;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A compact SHA-256 fingerprint of a token.
+ * The 32 digest bytes are kept as four longs, which makes the digest cheap to store, compare and use as a map key,
+ * while the token itself never has to be kept in memory.
+ */
+public record TokenDigest(long a, long b, long c, long d) {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    /**
+     * Computes the digest of the given token.
+     * The `MessageDigest` instance is cached per thread, so no algorithm lookup happens on the request path.
+     *
+     * @param token - The token to digest.
+     * @return TokenDigest - The digest of the token.
+     */
+
+    public static TokenDigest of(String token) {
+        byte[] digest = SHA_256.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+        ByteBuffer buffer = ByteBuffer.wrap(digest);
+        return new TokenDigest(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * Restores a digest from its hexadecimal form.
+     *
+     * @param hex - The 64 hexadecimal characters returned by `toHex`.
+     * @throws IllegalArgumentException - If the string is not a valid digest.
+     * @return TokenDigest - The digest.
+     */
+
+    public static TokenDigest fromHex(String hex) {
+        byte[] bytes = Hex.decode(hex);
+        if (bytes.length != 32) {
+            throw new IllegalArgumentException("A token digest has 32 bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new TokenDigest(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * @return String - The digest as 64 hexadecimal characters.
+     */
+
+    public String toHex() {
+        return Hex.encode(ByteBuffer.allocate(32).putLong(a).putLong(b).putLong(c).putLong(d).array());
+    }
+}
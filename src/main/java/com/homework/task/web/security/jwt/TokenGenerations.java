@@ -0,0 +1,145 @@
+package com.homework.task.web.security.jwt;
+
+import com.homework.task.cache.LongLongMap;
+import com.homework.task.database.repositories.UserRepository;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class TokenGenerations {
+
+    private final UserRepository userRepository;
+
+    /**
+     * The current token generation per user ID.
+     * Every token carries the generation of its user at the time it was issued, and only tokens of the current
+     * generation are accepted. Revoking all tokens of a user is therefore a single increment, no matter how many
+     * tokens the user holds, and checking a token is one lookup and one comparison. Generations only grow, so the
+     * map is only ever raised with `putMax`: a load that read the column before a concurrent `bump` cannot bring back
+     * the revoked generation.
+     */
+    private final LongLongMap generations;
+
+    /**
+     * The `System.nanoTime()` per user ID after which the cached generation has to be read from the 'users' table
+     * again. Other nodes bump generations in the database only, so this bounds how long a node keeps accepting tokens
+     * that were revoked elsewhere.
+     */
+    private final LongLongMap refreshAt;
+
+    private final long maxStalenessNanos;
+
+    /**
+     * Constructs the token generation registry.
+     *
+     * @param userRepository - The repository that persists the generations.
+     * @param expectedUsers - The number of users the in-memory maps are initially sized for.
+     * @param maxStalenessSeconds - How long a cached generation is trusted before it is read again.
+     */
+
+    public TokenGenerations(UserRepository userRepository,
+                            @Value("${security.jwt.generations.expected-users:10000}") int expectedUsers,
+                            @Value("${security.jwt.generations.max-staleness-seconds:5}") long maxStalenessSeconds) {
+        this.userRepository = userRepository;
+        this.generations = new LongLongMap(expectedUsers);
+        this.refreshAt = new LongLongMap(expectedUsers);
+        this.maxStalenessNanos = TimeUnit.SECONDS.toNanos(maxStalenessSeconds);
+    }
+
+    /**
+     * Retrieves the current token generation of a user.
+     * The generation is loaded from the 'users' table if it is not known yet or was cached longer than the configured
+     * maximum staleness ago.
+     *
+     * @param userId - The ID of the user.
+     * @return long - The current generation, or -1 if the user does not exist.
+     */
+
+    public long current(long userId) {
+        long generation = cached(userId);
+        return generation >= 0 ? generation : load(userId);
+    }
+
+    private long load(long userId) {
+        long now = System.nanoTime();
+        Long stored = userRepository.findTokenGeneration(userId);
+        if (stored == null) {
+            evict(userId);
+            return -1;
+        }
+        refreshAt.put(userId, now + maxStalenessNanos);
+        return generations.putMax(userId, stored);
+    }
+
+    /**
+     * Retrieves the cached token generation of a user without reading the database.
+     *
+     * @param userId - The ID of the user.
+     * @return long - The cached generation, or -1 if it is not cached or was cached longer than the maximum staleness ago.
+     */
+
+    public long cached(long userId) {
+        long now = System.nanoTime();
+        long generation = generations.get(userId, -1);
+        return generation >= 0 && now - refreshAt.get(userId, now) < 0 ? generation : -1;
+    }
+
+    /**
+     * Checks whether verified claims belong to the current token generation of their user.
+     * A token with a higher generation than the cached one was issued after the cache was filled, possibly by another
+     * node, so the generation is read from the 'users' table again before the token is judged. Only tokens of an older
+     * generation than the stored one are rejected.
+     *
+     * @param claims - The claims returned by `JwtUtility.verifyToken`.
+     * @return boolean - True if the token has not been revoked, false if it was revoked or lacks the claims.
+     */
+
+    public boolean isCurrent(Claims claims) {
+        Number userId = claims.get(JwtUtility.USER_ID_CLAIM, Number.class);
+        Number generation = claims.get(JwtUtility.GENERATION_CLAIM, Number.class);
+        if (userId == null || generation == null) {
+            return false;
+        }
+        long current = current(userId.longValue());
+        if (current >= 0 && generation.longValue() > current) {
+            current = load(userId.longValue());
+        }
+        return generation.longValue() == current;
+    }
+
+    /**
+     * Starts a new token generation for a user, which revokes every token issued before.
+     *
+     * @param userId - The ID of the user.
+     * @return long - The new generation, or -1 if the user does not exist.
+     */
+
+    public long bump(long userId) {
+        long now = System.nanoTime();
+        Long generation = userRepository.incrementTokenGeneration(userId);
+        if (generation == null) {
+            evict(userId);
+            return -1;
+        }
+        refreshAt.put(userId, now + maxStalenessNanos);
+        return generations.putMax(userId, generation);
+    }
+
+    /**
+     * Forgets the cached generation of a user, e.g. when a user ID is assigned to a new user.
+     *
+     * @param userId - The ID of the user.
+     */
+
+    public void evict(long userId) {
+        generations.remove(userId);
+        refreshAt.remove(userId);
+    }
+
+    public int size() {
+        return generations.size();
+    }
+}
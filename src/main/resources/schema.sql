@@ -3,7 +3,9 @@ CREATE TABLE IF NOT EXISTS tasks (
     id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
     status VARCHAR(50) NOT NULL DEFAULT 'ACTIVE',
     name VARCHAR(256) NOT NULL,
-    description TEXT NULL
+    description TEXT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
 -- Create the 'users' table
@@ -12,7 +14,10 @@ CREATE TABLE IF NOT EXISTS users (
     username VARCHAR(256) NOT NULL UNIQUE,
     password VARCHAR(512) NOT NULL,
     salt VARCHAR(128) NOT NULL,
-    role VARCHAR(128) NOT NULL
+    role VARCHAR(128) NOT NULL,
+    token_generation BIGINT NOT NULL DEFAULT 0,
+    -- The latest version given to a write to one of the user's tasks
+    task_version BIGINT NOT NULL DEFAULT 0
 );
 
 -- Alter the 'tasks' table to include a 'user_id' column
@@ -21,4 +26,9 @@ ADD COLUMN user_id BIGINT;
 
 -- Add a foreign key constraint to 'tasks' that references the 'id' column in the 'users' table
 ALTER TABLE tasks
-ADD CONSTRAINT fk_user_id FOREIGN KEY (user_id) REFERENCES users(id);
\ No newline at end of file
+ADD CONSTRAINT fk_user_id FOREIGN KEY (user_id) REFERENCES users(id);
+
+-- Indexes for per-user task lookups
+CREATE INDEX IF NOT EXISTS idx_tasks_user_status_id ON tasks (user_id, status, id);
+CREATE INDEX IF NOT EXISTS idx_tasks_user_id ON tasks (user_id, id);
+CREATE INDEX IF NOT EXISTS idx_tasks_user_version ON tasks (user_id, version);
@@ -0,0 +1,270 @@
+package com.homework.task;
+
+import com.homework.task.database.repositories.UserRepository;
+import com.homework.task.database.templates.Task;
+import com.homework.task.database.templates.TaskEvent;
+import com.homework.task.requests.TaskRequest;
+import com.homework.task.requests.UserRequest;
+import com.homework.task.web.security.jwt.JwtUtility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The reactive stack serves the same task endpoints as the servlet stack, except for the single-task cache of
+ * `TaskService`: R2DBC reads do not hold a thread while they wait for the database, which is the cost the cache saves
+ * on the servlet stack, so `GET /tasks/{id}` always reads the database here.
+ */
+@SpringBootTest(properties = {
+		"spring.main.web-application-type=reactive",
+		"spring.datasource.url=jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1",
+		"db.r2dbc.url=r2dbc:h2:mem:///reactive?options=DB_CLOSE_DELAY=-1"})
+@AutoConfigureWebTestClient
+class ReactiveTaskControllerTests {
+
+	private static final UserRequest basicUserRequest = new UserRequest("user", "user");
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JwtUtility jwtUtility;
+
+	private String token;
+
+	@BeforeEach
+	void registerAndLoginBasicUser() {
+		webTestClient.post().uri("/register")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(basicUserRequest)
+				.exchange()
+				.expectStatus().isCreated();
+
+		String body = webTestClient.post().uri("/login")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(basicUserRequest)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class)
+				.returnResult()
+				.getResponseBody();
+		token = body.split(":")[1];
+	}
+
+	@AfterEach
+	void deleteUsersAndTasks() {
+		jdbcTemplate.execute("DELETE FROM tasks");
+		jdbcTemplate.execute("DELETE FROM users");
+	}
+
+	private long createTask(TaskRequest task) {
+		Task created = webTestClient.post().uri("/tasks")
+				.header("Authorization", "Bearer " + token)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(task)
+				.exchange()
+				.expectStatus().isCreated()
+				.expectBody(Task.class)
+				.returnResult()
+				.getResponseBody();
+		return created.getId();
+	}
+
+	@Test
+	void getTasksWithoutAuthentication() {
+		webTestClient.get().uri("/tasks?status=ACTIVE")
+				.exchange()
+				.expectStatus().isForbidden();
+	}
+
+	@Test
+	void getTasksWithTamperedToken() {
+		int index = token.length() - 10;
+		String tamperedToken = token.substring(0, index) + (token.charAt(index) == 'A' ? 'B' : 'A') + token.substring(index + 1);
+
+		webTestClient.get().uri("/tasks?status=ACTIVE")
+				.header("Authorization", "Bearer " + tamperedToken)
+				.exchange()
+				.expectStatus().isUnauthorized();
+	}
+
+	@Test
+	void getTasksWithRevokedToken() {
+		webTestClient.get().uri("/tasks?status=ACTIVE")
+				.header("Authorization", "Bearer " + token)
+				.exchange()
+				.expectStatus().isOk();
+
+		webTestClient.post().uri("/logout")
+				.header("Authorization", "Bearer " + token)
+				.exchange()
+				.expectStatus().isOk();
+
+		// The verified claims of the token are still cached, but logout started a new generation
+		webTestClient.get().uri("/tasks?status=ACTIVE")
+				.header("Authorization", "Bearer " + token)
+				.exchange()
+				.expectStatus().isUnauthorized();
+	}
+
+	@Test
+	void getTasksWithTokenOfNewerGeneration() {
+		webTestClient.get().uri("/tasks?status=ACTIVE")
+				.header("Authorization", "Bearer " + token)
+				.exchange()
+				.expectStatus().isOk();
+
+		// Another node logs the user in: it bumps the generation in the database only
+		long userId = userRepository.findIdByUsername("user");
+		long generation = userRepository.incrementTokenGeneration(userId);
+		String newToken = jwtUtility.generateToken("user", userId, generation);
+
+		webTestClient.get().uri("/tasks?status=ACTIVE")
+				.header("Authorization", "Bearer " + newToken)
+				.exchange()
+				.expectStatus().isOk();
+
+		webTestClient.get().uri("/tasks?status=ACTIVE")
+				.header("Authorization", "Bearer " + token)
+				.exchange()
+				.expectStatus().isUnauthorized();
+	}
+
+	@Test
+	void addAndGetTask() {
+		long id = createTask(new TaskRequest(Task.Status.ACTIVE, "Task 1", "Task 1 desc"));
+
+		webTestClient.get().uri("/tasks/" + id)
+				.header("Authorization", "Bearer " + token)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("name").isEqualTo("Task 1")
+				.jsonPath("description").isEqualTo("Task 1 desc")
+				.jsonPath("status").isEqualTo("ACTIVE");
+	}
+
+	@Test
+	void getPageOfTasks() {
+		createTask(new TaskRequest(Task.Status.ACTIVE, "Task 1", null));
+		long second = createTask(new TaskRequest(Task.Status.ACTIVE, "Task 2", null));
+		createTask(new TaskRequest(Task.Status.ACTIVE, "Task 3", null));
+
+		webTestClient.get().uri("/tasks?status=ACTIVE&limit=2")
+				.header("Authorization", "Bearer " + token)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals("X-Next-After", String.valueOf(second))
+				.expectBody()
+				.jsonPath("$.length()").isEqualTo(2)
+				.jsonPath("$[1].name").isEqualTo("Task 2");
+	}
+
+	@Test
+	void updateStatusCountsRepeatedIdsOnce() {
+		long first = createTask(new TaskRequest(Task.Status.ACTIVE, "Task 1", null));
+		long second = createTask(new TaskRequest(Task.Status.ACTIVE, "Task 2", null));
+
+		webTestClient.put().uri("/tasks/status")
+				.header("Authorization", "Bearer " + token)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"status\":\"INACTIVE\",\"ids\":[" + first + "," + first + "," + second + "]}")
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("updated").isEqualTo(2)
+				.jsonPath("notUpdated.length()").isEqualTo(0);
+	}
+
+	@Test
+	void updateStatusWithNullId() {
+		long first = createTask(new TaskRequest(Task.Status.ACTIVE, "Task 1", null));
+
+		webTestClient.put().uri("/tasks/status")
+				.header("Authorization", "Bearer " + token)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"status\":\"INACTIVE\",\"ids\":[" + first + ",null]}")
+				.exchange()
+				.expectStatus().isBadRequest();
+	}
+
+	@Test
+	void getTasksNotModified() {
+		createTask(new TaskRequest(Task.Status.ACTIVE, "Task 1", null));
+
+		String eTag = webTestClient.get().uri("/tasks?status=ACTIVE")
+				.header("Authorization", "Bearer " + token)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody()
+				.jsonPath("$.length()").isEqualTo(1)
+				.returnResult()
+				.getResponseHeaders()
+				.getETag();
+		assertThat(eTag).isNotNull();
+
+		webTestClient.get().uri("/tasks?status=ACTIVE")
+				.header("Authorization", "Bearer " + token)
+				.header(HttpHeaders.IF_NONE_MATCH, eTag)
+				.exchange()
+				.expectStatus().isNotModified();
+		webTestClient.get().uri("/tasks?status=ACTIVE&limit=10")
+				.header("Authorization", "Bearer " + token)
+				.header(HttpHeaders.IF_NONE_MATCH, eTag)
+				.exchange()
+				.expectStatus().isNotModified();
+
+		createTask(new TaskRequest(Task.Status.INACTIVE, "Task 2", null));
+
+		webTestClient.get().uri("/tasks?status=ACTIVE&limit=10")
+				.header("Authorization", "Bearer " + token)
+				.header(HttpHeaders.IF_NONE_MATCH, eTag)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().value(HttpHeaders.ETAG, newETag -> assertThat(newETag).isNotEqualTo(eTag));
+	}
+
+	@Test
+	void subscribeToTaskEvents() {
+		try (Stream<ServerSentEvent<TaskEvent>> stream = webTestClient.get().uri("/tasks/events")
+				.header("Authorization", "Bearer " + token)
+				.accept(MediaType.TEXT_EVENT_STREAM)
+				.exchange()
+				.expectStatus().isOk()
+				.returnResult(new ParameterizedTypeReference<ServerSentEvent<TaskEvent>>() {})
+				.getResponseBody()
+				.timeout(Duration.ofSeconds(5))
+				.toStream()) {
+			Iterator<ServerSentEvent<TaskEvent>> events = stream.iterator();
+			assertThat(events.next().event()).isEqualTo("RESYNC");
+
+			long id = createTask(new TaskRequest(Task.Status.ACTIVE, "Task 1", null));
+
+			ServerSentEvent<TaskEvent> created = events.next();
+			assertThat(created.event()).isEqualTo("CREATED");
+			assertThat(created.data().task().getId()).isEqualTo(id);
+			assertThat(created.data().task().getName()).isEqualTo("Task 1");
+		}
+	}
+}
@@ -1,22 +1,25 @@
 package com.homework.task;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.homework.task.database.services.TokenBlacklistService;
 import com.homework.task.database.templates.Task;
 import com.homework.task.requests.UserRequest;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -76,9 +79,6 @@ class TaskControllerTests {
 	@Autowired
 	private JdbcTemplate jdbcTemplate;
 
-	@MockitoBean
-	private TokenBlacklistService tokenBlacklistService;
-
 	private void createTask(TaskRequest task, String token) throws Exception {
 		mockMvc.perform(post(BASE_URL + "/tasks")
 						.content(objectMapper.writeValueAsString(task))
@@ -110,17 +110,35 @@ class TaskControllerTests {
 		return mvcResult.getResponse().getContentAsString();
 	}
 
+	private MvcResult openEventStream(String token) throws Exception {
+		return mockMvc.perform(get(BASE_URL + "/tasks/events")
+						.header("Authorization", "Bearer " + token)
+						.accept(MediaType.TEXT_EVENT_STREAM))
+				.andExpect(status().isOk())
+				.andExpect(request().asyncStarted())
+				.andReturn();
+	}
+
+	private static String awaitEvent(MvcResult stream, String type) throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		String content = stream.getResponse().getContentAsString();
+		while (!content.contains("event:" + type) && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+			content = stream.getResponse().getContentAsString();
+		}
+		return content;
+	}
+
+	private static void closeEventStream(MvcResult stream) {
+		stream.getRequest().getAsyncContext().complete();
+	}
+
 	@AfterEach
 	void resetAutoIncrement() {
 		jdbcTemplate.execute("ALTER TABLE tasks ALTER COLUMN id RESTART WITH 1");
 		jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN id RESTART WITH 1");
 	}
 
-	@AfterEach
-	void resetMocks() {
-		Mockito.reset(tokenBlacklistService);
-	}
-
 	@Test
 	void addTaskWithoutAuthentication() throws Exception {
 		TaskRequest task1 = new TaskRequest(Task.Status.ACTIVE, "Task 1", "Task 1 desc");
@@ -133,6 +151,24 @@ class TaskControllerTests {
 
 	}
 
+	@Test
+	void addTaskWithTamperedToken() throws Exception {
+		TaskRequest task1 = new TaskRequest(Task.Status.ACTIVE, "Task 1", "Task 1 desc");
+
+		registerBasicUser();
+		String token = loginBasicUser().split(":")[1];
+		int index = token.length() - 10;
+		String tamperedToken = token.substring(0, index) + (token.charAt(index) == 'A' ? 'B' : 'A') + token.substring(index + 1);
+
+		mockMvc.perform(post(BASE_URL + "/tasks")
+						.content(objectMapper.writeValueAsString(task1))
+						.contentType(MediaType.APPLICATION_JSON)
+						.header("Authorization", "Bearer " + tamperedToken)
+						.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isUnauthorized());
+
+	}
+
 	@Test
 	void addTask() throws Exception {
 		TaskRequest task1 = new TaskRequest(Task.Status.ACTIVE, "Task 1", "Task 1 desc");
@@ -146,7 +182,12 @@ class TaskControllerTests {
 						.header("Authorization", "Bearer " + token)
 						.accept(MediaType.APPLICATION_JSON))
 				.andExpect(status().isCreated())
-				.andExpect(content().contentType(MediaType.APPLICATION_JSON));
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(header().string("Location", "/tasks/1"))
+				.andExpect(jsonPath("id").value(1))
+				.andExpect(jsonPath("status").value("ACTIVE"))
+				.andExpect(jsonPath("name").value("Task 1"))
+				.andExpect(jsonPath("description").value("Task 1 desc"));
 
 	}
 
@@ -232,6 +273,50 @@ class TaskControllerTests {
 				.andExpect(content().contentType(MediaType.APPLICATION_JSON));
 	}
 
+	@Test
+	void addTasksInBatch() throws Exception {
+		TaskRequest task1 = new TaskRequest(Task.Status.ACTIVE, "Task 1", "Task 1 desc");
+		TaskRequest task2 = new TaskRequest(Task.Status.ACTIVE, null, "Task 2 desc");
+		TaskRequest task3 = new TaskRequest(Task.Status.INACTIVE, "Task 3", "Task 3 desc");
+
+		registerBasicUser();
+		String token = loginBasicUser().split(":")[1];
+
+		mockMvc.perform(post(BASE_URL + "/tasks/batch")
+						.content(objectMapper.writeValueAsString(new TaskRequest[]{task1, task2, task3}))
+						.contentType(MediaType.APPLICATION_JSON)
+						.header("Authorization", "Bearer " + token)
+						.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isMultiStatus())
+				.andExpect(jsonPath("$[0].status").value("CREATED"))
+				.andExpect(jsonPath("$[0].id").value(1))
+				.andExpect(jsonPath("$[1].status").value("INVALID"))
+				.andExpect(jsonPath("$[2].status").value("CREATED"))
+				.andExpect(jsonPath("$[2].id").value(2));
+
+		mockMvc.perform(get(BASE_URL + "/tasks/2")
+						.contentType(MediaType.APPLICATION_JSON)
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("status").value("INACTIVE"))
+				.andExpect(jsonPath("name").value("Task 3"));
+	}
+
+	@Test
+	void addTasksInBatchFromNdjson() throws Exception {
+		registerBasicUser();
+		String token = loginBasicUser().split(":")[1];
+
+		mockMvc.perform(post(BASE_URL + "/tasks/batch")
+						.content("{\"status\": \"ACTIVE\",\"name\": \"Task 1\"}\n{\"status\": \"ACTIVE\",\"name\": \"Task 2\"}\n")
+						.contentType("application/x-ndjson")
+						.header("Authorization", "Bearer " + token)
+						.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$[1].id").value(2));
+	}
+
 	@Test
 	void getTaskWithValidId() throws Exception {
 
@@ -253,6 +338,46 @@ class TaskControllerTests {
 
 	}
 
+	@Test
+	void getTaskWithETag() throws Exception {
+
+		TaskRequest task1 = new TaskRequest(Task.Status.ACTIVE, "Task 1", "Task 1 desc");
+
+		registerBasicUser();
+		String token = loginBasicUser().split(":")[1];
+
+		createTask(task1, token);
+
+		mockMvc.perform(get(BASE_URL + "/tasks/1")
+					.contentType(MediaType.APPLICATION_JSON)
+					.header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"1\""))
+				.andExpect(jsonPath("version").value(1));
+
+		mockMvc.perform(get(BASE_URL + "/tasks/1")
+					.contentType(MediaType.APPLICATION_JSON)
+					.header("Authorization", "Bearer " + token)
+					.header("If-None-Match", "\"1\""))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+
+		mockMvc.perform(patch(BASE_URL + "/tasks/1")
+					.content("{\"name\":\"Task 1 renamed\"}")
+					.contentType(MediaType.APPLICATION_JSON)
+					.header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get(BASE_URL + "/tasks/1")
+					.contentType(MediaType.APPLICATION_JSON)
+					.header("Authorization", "Bearer " + token)
+					.header("If-None-Match", "\"1\""))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"2\""))
+				.andExpect(jsonPath("name").value("Task 1 renamed"));
+
+	}
+
 	@Test
 	void getTaskWithInvalidId() throws Exception {
 		mockMvc.perform(get(BASE_URL + "/tasks/999")
@@ -289,6 +414,129 @@ class TaskControllerTests {
 
 	}
 
+	@Test
+	void getTasksByStatusWithLimit() throws Exception {
+
+		TaskRequest task1 = new TaskRequest(Task.Status.ACTIVE, "Task 1", "Task 1 desc");
+		TaskRequest task2 = new TaskRequest(Task.Status.ACTIVE, "Task 2", "Task 2 desc");
+		TaskRequest task3 = new TaskRequest(Task.Status.ACTIVE, "Task 3", "Task 3 desc");
+
+		registerBasicUser();
+		String token = loginBasicUser().split(":")[1];
+
+		createTask(task1, token);
+		createTask(task2, token);
+		createTask(task3, token);
+
+		mockMvc.perform(get(BASE_URL + "/tasks?status=ACTIVE&limit=2")
+						.contentType(MediaType.APPLICATION_JSON)
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(header().string("X-Next-After", "2"))
+				.andExpect(jsonPath("$.length()").value(2))
+				.andExpect(jsonPath("$[0].id").value(1))
+				.andExpect(jsonPath("$[1].id").value(2));
+
+		mockMvc.perform(get(BASE_URL + "/tasks?status=ACTIVE&limit=2&after=2")
+						.contentType(MediaType.APPLICATION_JSON)
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist("X-Next-After"))
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].id").value(3))
+				.andExpect(jsonPath("$[0].name").value("Task 3"));
+
+	}
+
+	@Test
+	void getTasksByStatusNotModified() throws Exception {
+
+		TaskRequest task1 = new TaskRequest(Task.Status.ACTIVE, "Task 1", "Task 1 desc");
+		TaskRequest task2 = new TaskRequest(Task.Status.INACTIVE, "Task 2", "Task 2 desc");
+
+		registerBasicUser();
+		String token = loginBasicUser().split(":")[1];
+
+		createTask(task1, token);
+		createTask(task2, token);
+
+		mockMvc.perform(get(BASE_URL + "/tasks?status=ACTIVE")
+						.contentType(MediaType.APPLICATION_JSON)
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"2\""));
+
+		mockMvc.perform(get(BASE_URL + "/tasks?status=ACTIVE&limit=10")
+						.contentType(MediaType.APPLICATION_JSON)
+						.header("Authorization", "Bearer " + token)
+						.header("If-None-Match", "\"2\""))
+				.andExpect(status().isNotModified());
+
+		createTask(task1, token);
+
+		mockMvc.perform(get(BASE_URL + "/tasks?status=ACTIVE")
+						.contentType(MediaType.APPLICATION_JSON)
+						.header("Authorization", "Bearer " + token)
+						.header("If-None-Match", "\"2\""))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"3\""))
+				.andExpect(jsonPath("$.length()").value(2));
+
+	}
+
+	@Test
+	void getTaskChanges() throws Exception {
+
+		TaskRequest task1 = new TaskRequest(Task.Status.ACTIVE, "Task 1", "Task 1 desc");
+		TaskRequest task2 = new TaskRequest(Task.Status.ACTIVE, "Task 2", "Task 2 desc");
+		TaskRequest task3 = new TaskRequest(Task.Status.ACTIVE, "Task 3", "Task 3 desc");
+
+		registerBasicUser();
+		String token = loginBasicUser().split(":")[1];
+
+		createTask(task1, token);
+		createTask(task2, token);
+		createTask(task3, token);
+
+		mockMvc.perform(put(BASE_URL + "/tasks/1")
+						.content(objectMapper.writeValueAsString(new TaskRequest(Task.Status.INACTIVE, "Task 1", "Task 1 desc")))
+						.contentType(MediaType.APPLICATION_JSON)
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get(BASE_URL + "/tasks/changes?since=2&limit=1")
+						.contentType(MediaType.APPLICATION_JSON)
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(header().string("X-Next-Since", "3"))
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].id").value(3))
+				.andExpect(jsonPath("$[0].version").value(3));
+
+		mockMvc.perform(get(BASE_URL + "/tasks/changes?since=3&limit=1")
+						.contentType(MediaType.APPLICATION_JSON)
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist("X-Next-Since"))
+				.andExpect(jsonPath("$.length()").value(1))
+				.andExpect(jsonPath("$[0].id").value(1))
+				.andExpect(jsonPath("$[0].status").value("INACTIVE"))
+				.andExpect(jsonPath("$[0].version").value(4));
+
+	}
+
+	@Test
+	void getTasksByStatusWithInvalidLimit() throws Exception {
+
+		registerBasicUser();
+		String token = loginBasicUser().split(":")[1];
+
+		mockMvc.perform(get(BASE_URL + "/tasks?status=ACTIVE&limit=0")
+						.contentType(MediaType.APPLICATION_JSON)
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isBadRequest());
+	}
+
 	@Test
 	void getTasksByUnknownStatus() throws Exception {
 		TaskRequest task1 = new TaskRequest(Task.Status.ACTIVE, "Task 1", "Task 1 desc");
@@ -466,4 +714,244 @@ class TaskControllerTests {
 
 	}
 
+	@Test
+	void patchTaskStatus() throws Exception {
+		TaskRequest task1 = new TaskRequest(Task.Status.ACTIVE, "Task 1", "Task 1 desc");
+
+		registerBasicUser();
+		String token = loginBasicUser().split(":")[1];
+
+		createTask(task1, token);
+
+		mockMvc.perform(patch(BASE_URL + "/tasks/1")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"status\": \"INACTIVE\"}")
+						.header("Authorization", "Bearer " + token)
+						.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get(BASE_URL + "/tasks/1")
+						.contentType(MediaType.APPLICATION_JSON)
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("id").value(1))
+				.andExpect(jsonPath("status").value("INACTIVE"))
+				.andExpect(jsonPath("name").value("Task 1"))
+				.andExpect(jsonPath("description").value("Task 1 desc"));
+
+	}
+
+	@Test
+	void changeTaskWithIfMatch() throws Exception {
+		TaskRequest task1 = new TaskRequest(Task.Status.ACTIVE, "Task 1", "Task 1 desc");
+
+		registerBasicUser();
+		String token = loginBasicUser().split(":")[1];
+
+		createTask(task1, token);
+
+		TaskRequest newTask = new TaskRequest(Task.Status.INACTIVE, "Task 1", "Task 1 desc");
+
+		mockMvc.perform(put(BASE_URL + "/tasks/1")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(newTask))
+						.header("Authorization", "Bearer " + token)
+						.header("If-Match", "\"1\"")
+						.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"2\""));
+
+		TaskRequest staleTask = new TaskRequest(Task.Status.ACTIVE, "Stale task", "Task 1 desc");
+
+		mockMvc.perform(put(BASE_URL + "/tasks/1")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(staleTask))
+						.header("Authorization", "Bearer " + token)
+						.header("If-Match", "\"1\"")
+						.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isPreconditionFailed());
+
+		mockMvc.perform(patch(BASE_URL + "/tasks/1")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"name\": \"Stale task\"}")
+						.header("Authorization", "Bearer " + token)
+						.header("If-Match", "\"1\"")
+						.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isPreconditionFailed());
+
+		mockMvc.perform(get(BASE_URL + "/tasks/1")
+						.contentType(MediaType.APPLICATION_JSON)
+						.header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"2\""))
+				.andExpect(jsonPath("status").value("INACTIVE"))
+				.andExpect(jsonPath("name").value("Task 1"));
+
+	}
+
+	@Test
+	void changeTaskThatDoesNotExistWithIfMatch() throws Exception {
+		registerBasicUser();
+		String token = loginBasicUser().split(":")[1];
+
+		TaskRequest newTask = new TaskRequest(Task.Status.INACTIVE, "Task 1", "Task 1 desc");
+
+		mockMvc.perform(put(BASE_URL + "/tasks/999")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(newTask))
+						.header("Authorization", "Bearer " + token)
+						.header("If-Match", "\"1\"")
+						.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void changeTaskThatDoesNotExist() throws Exception {
+		registerBasicUser();
+		String token = loginBasicUser().split(":")[1];
+
+		TaskRequest newTask = new TaskRequest(Task.Status.INACTIVE, "Task 1", "Task 1 desc");
+
+		mockMvc.perform(put(BASE_URL + "/tasks/999")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(newTask))
+						.header("Authorization", "Bearer " + token)
+						.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isNotFound());
+
+	}
+
+	@Test
+	void updateStatusCountsRepeatedIdsOnce() throws Exception {
+		TaskRequest task1 = new TaskRequest(Task.Status.ACTIVE, "Task 1", "Task 1 desc");
+		TaskRequest task2 = new TaskRequest(Task.Status.ACTIVE, "Task 2", "Task 2 desc");
+
+		registerBasicUser();
+		String token = loginBasicUser().split(":")[1];
+		createTask(task1, token);
+		createTask(task2, token);
+
+		mockMvc.perform(put(BASE_URL + "/tasks/status")
+						.content("{\"status\":\"INACTIVE\",\"ids\":[1,1,2,2]}")
+						.contentType(MediaType.APPLICATION_JSON)
+						.header("Authorization", "Bearer " + token)
+						.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("updated").value(2))
+				.andExpect(jsonPath("notUpdated").isEmpty());
+	}
+
+	@Test
+	void updateStatusWithNullId() throws Exception {
+		TaskRequest task1 = new TaskRequest(Task.Status.ACTIVE, "Task 1", "Task 1 desc");
+
+		registerBasicUser();
+		String token = loginBasicUser().split(":")[1];
+		createTask(task1, token);
+
+		mockMvc.perform(put(BASE_URL + "/tasks/status")
+						.content("{\"status\":\"INACTIVE\",\"ids\":[1,null]}")
+						.contentType(MediaType.APPLICATION_JSON)
+						.header("Authorization", "Bearer " + token)
+						.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void taskEventsWithoutAuthentication() throws Exception {
+		mockMvc.perform(get(BASE_URL + "/tasks/events")
+						.accept(MediaType.TEXT_EVENT_STREAM))
+				.andExpect(status().isForbidden());
+	}
+
+	@Test
+	void subscribeToTaskEvents() throws Exception {
+		registerBasicUser();
+		String token = loginBasicUser().split(":")[1];
+
+		MvcResult stream = openEventStream(token);
+		try {
+			assertThat(stream.getResponse().getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+			assertThat(awaitEvent(stream, "RESYNC")).startsWith("event:RESYNC");
+		} finally {
+			closeEventStream(stream);
+		}
+	}
+
+	@Test
+	void taskEventsAreNotSentBeforeCommit() throws Exception {
+		TaskRequest task1 = new TaskRequest(Task.Status.ACTIVE, "Task 1", "Task 1 desc");
+
+		registerBasicUser();
+		String token = loginBasicUser().split(":")[1];
+
+		MvcResult stream = openEventStream(token);
+		try {
+			awaitEvent(stream, "RESYNC");
+			// The test transaction is rolled back, so the task is never committed
+			createTask(task1, token);
+			Thread.sleep(200);
+
+			assertThat(stream.getResponse().getContentAsString()).doesNotContain("event:CREATED");
+		} finally {
+			closeEventStream(stream);
+		}
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void taskEventsCarryCommittedChanges() throws Exception {
+		TaskRequest task1 = new TaskRequest(Task.Status.ACTIVE, "Task 1", "Task 1 desc");
+
+		registerBasicUser();
+		MvcResult stream = null;
+		try {
+			String token = loginBasicUser().split(":")[1];
+			stream = openEventStream(token);
+			awaitEvent(stream, "RESYNC");
+
+			createTask(task1, token);
+			String created = awaitEvent(stream, "CREATED");
+			assertThat(created).contains("event:CREATED\ndata:");
+			assertThat(created).contains("\"type\":\"CREATED\"", "\"name\":\"Task 1\"", "\"description\":\"Task 1 desc\"");
+
+			mockMvc.perform(put(BASE_URL + "/tasks/1")
+							.content(objectMapper.writeValueAsString(new TaskRequest(Task.Status.INACTIVE, "Task 1", "Task 1 desc")))
+							.contentType(MediaType.APPLICATION_JSON)
+							.header("Authorization", "Bearer " + token))
+					.andExpect(status().isOk());
+			String updated = awaitEvent(stream, "UPDATED");
+			assertThat(updated).contains("\"type\":\"UPDATED\"", "\"status\":\"INACTIVE\"");
+		} finally {
+			if (stream != null) {
+				closeEventStream(stream);
+			}
+			jdbcTemplate.update("DELETE FROM tasks");
+			jdbcTemplate.update("DELETE FROM users");
+		}
+	}
+
+	@Test
+	void taskEventStreamsPerUserAreLimited() throws Exception {
+		registerBasicUser();
+		String token = loginBasicUser().split(":")[1];
+
+		List<MvcResult> streams = new ArrayList<>();
+		try {
+			for (int i = 0; i < 4; i++) {
+				streams.add(openEventStream(token));
+			}
+
+			mockMvc.perform(get(BASE_URL + "/tasks/events")
+							.header("Authorization", "Bearer " + token)
+							.accept(MediaType.TEXT_EVENT_STREAM))
+					.andExpect(status().isTooManyRequests());
+
+			closeEventStream(streams.removeFirst());
+			streams.add(openEventStream(token));
+		} finally {
+			streams.forEach(TaskControllerTests::closeEventStream);
+		}
+	}
+
 }
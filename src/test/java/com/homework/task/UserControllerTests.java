@@ -1,28 +1,32 @@
 package com.homework.task;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.homework.task.database.services.TokenBlacklistService;
+import com.homework.task.database.repositories.UserRepository;
 import com.homework.task.requests.UserRequest;
+import com.homework.task.web.security.PasswordManager;
+import com.homework.task.web.security.jwt.JwtUtility;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+// The spied PasswordManager gives this class a context of its own, which needs a database of its own
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:users;DB_CLOSE_DELAY=-1")
 @AutoConfigureMockMvc
 @Transactional
 public class UserControllerTests {
@@ -37,8 +41,14 @@ public class UserControllerTests {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
-    @MockitoBean
-    private TokenBlacklistService tokenBlacklistService;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtility jwtUtility;
+
+    @MockitoSpyBean
+    private PasswordManager passwordManager;
 
 
     @AfterEach
@@ -46,11 +56,6 @@ public class UserControllerTests {
         jdbcTemplate.execute("ALTER TABLE users ALTER COLUMN id RESTART WITH 1");
     }
 
-    @AfterEach
-    void resetMocks() {
-        Mockito.reset(tokenBlacklistService); // Reset mock state
-    }
-
     private void registerBasicUser() throws Exception {
         mockMvc.perform(post(BASE_URL + "/register")
                         .content(objectMapper.writeValueAsString(basicUserRequest))
@@ -119,6 +124,107 @@ public class UserControllerTests {
                 .andExpect(status().isBadRequest())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON));
 
+        // The password is hashed anyway, so the response time does not reveal that the user does not exist
+        verify(passwordManager).verifyDummyPassword(basicUserRequest.getPassword());
+
+    }
+
+    @Test
+    void refreshRotatesRefreshToken() throws Exception {
+
+        registerBasicUser();
+
+        MvcResult loginResult = mockMvc.perform(post(BASE_URL + "/login")
+                        .content(objectMapper.writeValueAsString(basicUserRequest))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-Refresh-Token"))
+                .andReturn();
+        String refreshToken = loginResult.getResponse().getHeader("X-Refresh-Token");
+
+        MvcResult refreshResult = mockMvc.perform(post(BASE_URL + "/token/refresh")
+                        .header("X-Refresh-Token", refreshToken)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertThat(refreshResult.getResponse().getContentAsString()).startsWith("bearer:");
+        assertThat(refreshResult.getResponse().getHeader("X-Refresh-Token")).isNotEqualTo(refreshToken);
+
+        mockMvc.perform(post(BASE_URL + "/token/refresh")
+                        .header("X-Refresh-Token", refreshToken)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnauthorized());
+
+    }
+
+    @Test
+    void loginRevokesPreviousToken() throws Exception {
+
+        registerBasicUser();
+        String firstToken = loginBasicUser().split(":")[1];
+        String secondToken = loginBasicUser().split(":")[1];
+
+        mockMvc.perform(post(BASE_URL + "/logout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "bearer " + firstToken)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(post(BASE_URL + "/logout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "bearer " + secondToken)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+    }
+
+    @Test
+    void tokenOfNewerGenerationIsAcceptedBeforeCacheRefresh() throws Exception {
+
+        registerBasicUser();
+        String token = loginBasicUser().split(":")[1];
+
+        mockMvc.perform(get(BASE_URL + "/tasks?status=ACTIVE")
+                        .header("Authorization", "bearer " + token))
+                .andExpect(status().isOk());
+
+        // Another node logs the user in: it bumps the generation in the database only
+        long userId = userRepository.findIdByUsername("user");
+        long generation = userRepository.incrementTokenGeneration(userId);
+        String newToken = jwtUtility.generateToken("user", userId, generation);
+
+        mockMvc.perform(get(BASE_URL + "/tasks?status=ACTIVE")
+                        .header("Authorization", "bearer " + newToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(BASE_URL + "/tasks?status=ACTIVE")
+                        .header("Authorization", "bearer " + token))
+                .andExpect(status().isUnauthorized());
+
+    }
+
+    @Test
+    void loginIsThrottledAfterRepeatedFailures() throws Exception {
+
+        UserRequest wrongPasswordRequest = new UserRequest("throttled", "wrong");
+
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post(BASE_URL + "/login")
+                            .content(objectMapper.writeValueAsString(wrongPasswordRequest))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest());
+        }
+
+        mockMvc.perform(post(BASE_URL + "/login")
+                        .content(objectMapper.writeValueAsString(wrongPasswordRequest))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+
     }
 
     @Test
@@ -134,7 +240,25 @@ public class UserControllerTests {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON));
 
-        when(tokenBlacklistService.isTokenBlacklisted(token)).thenReturn(true);
+        mockMvc.perform(post(BASE_URL + "/logout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "bearer " + token)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnauthorized());
+
+    }
+
+    @Test
+    void logoutRevokesReturnedToken() throws Exception {
+
+        registerBasicUser();
+        String token = loginBasicUser().split(":")[1];
+
+        mockMvc.perform(post(BASE_URL + "/logout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "bearer " + token)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
 
         mockMvc.perform(post(BASE_URL + "/logout")
                         .contentType(MediaType.APPLICATION_JSON)
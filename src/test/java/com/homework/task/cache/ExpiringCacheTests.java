@@ -0,0 +1,137 @@
+package com.homework.task.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExpiringCacheTests {
+
+	@Test
+	void getReturnsStoredValue() {
+		ExpiringCache<String, String> cache = new ExpiringCache<>(16, 60_000);
+		cache.put("key", "value");
+
+		assertThat(cache.get("key")).isEqualTo("value");
+		assertThat(cache.get("other")).isNull();
+		assertThat(cache.getHits()).isEqualTo(1);
+		assertThat(cache.getMisses()).isEqualTo(1);
+	}
+
+	@Test
+	void expiredEntryIsMissedAndRemoved() {
+		ExpiringCache<String, String> cache = new ExpiringCache<>(16, 60_000);
+		cache.put("expired", "value", System.currentTimeMillis() - 1);
+		cache.put("live", "value", System.currentTimeMillis() + 60_000);
+
+		assertThat(cache.get("expired")).isNull();
+		assertThat(cache.get("live")).isEqualTo("value");
+		assertThat(cache.size()).isEqualTo(1);
+		assertThat(cache.getEvictions()).isEqualTo(1);
+	}
+
+	@Test
+	void sizeStaysWithinBound() {
+		ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(16, 60_000);
+		for (int i = 0; i < 1000; i++) {
+			cache.put(i, i);
+			assertThat(cache.size()).isLessThanOrEqualTo(16);
+		}
+
+		assertThat(cache.get(999)).isEqualTo(999);
+		assertThat(cache.getEvictions()).isGreaterThanOrEqualTo(1000 - 16);
+	}
+
+	@Test
+	void expiredEntriesAreEvictedBeforeLiveOnes() {
+		ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(4, 60_000);
+		cache.put(1, 1);
+		cache.put(2, 2, System.currentTimeMillis() - 1);
+		cache.put(3, 3, System.currentTimeMillis() - 1);
+		cache.put(4, 4);
+
+		cache.put(5, 5);
+
+		assertThat(cache.get(1)).isEqualTo(1);
+		assertThat(cache.get(4)).isEqualTo(4);
+		assertThat(cache.get(5)).isEqualTo(5);
+	}
+
+	@Test
+	void loaderResultIsCached() {
+		ExpiringCache<String, String> cache = new ExpiringCache<>(16, 60_000);
+		int[] loads = new int[1];
+
+		assertThat(cache.get("key", key -> {
+			loads[0]++;
+			return key + "-value";
+		})).isEqualTo("key-value");
+		assertThat(cache.get("key", key -> {
+			loads[0]++;
+			return "reloaded";
+		})).isEqualTo("key-value");
+		assertThat(loads[0]).isEqualTo(1);
+	}
+
+	@Test
+	void nullLoaderResultIsNotCached() {
+		ExpiringCache<String, String> cache = new ExpiringCache<>(16, 60_000);
+
+		assertThat(cache.get("key", key -> null)).isNull();
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	void valueLoadedDuringInvalidationIsNotCached() {
+		ExpiringCache<String, String> cache = new ExpiringCache<>(16, 60_000);
+
+		String loaded = cache.get("key", key -> {
+			// A write that changes the loaded data invalidates while the load is running
+			cache.invalidate(key);
+			return "stale";
+		});
+
+		assertThat(loaded).isEqualTo("stale");
+		assertThat(cache.get("key")).isNull();
+	}
+
+	@Test
+	void valueLoadedDuringInvalidationOfAnotherKeyIsCached() {
+		ExpiringCache<String, String> cache = new ExpiringCache<>(16, 60_000);
+		cache.put("other", "value");
+
+		cache.get("key", key -> {
+			cache.invalidate("other");
+			cache.invalidateIf(otherKey -> otherKey.startsWith("other"));
+			return "fresh";
+		});
+
+		assertThat(cache.get("key")).isEqualTo("fresh");
+	}
+
+	@Test
+	void loadingValueIsMissed() {
+		ExpiringCache<String, String> cache = new ExpiringCache<>(16, 60_000);
+
+		cache.get("key", key -> {
+			assertThat(cache.get(key)).isNull();
+			return "value";
+		});
+
+		assertThat(cache.get("key")).isEqualTo("value");
+		assertThat(cache.getMisses()).isEqualTo(2);
+	}
+
+	@Test
+	void invalidateIfRemovesMatchingKeys() {
+		ExpiringCache<String, String> cache = new ExpiringCache<>(16, 60_000);
+		cache.put("user:1", "a");
+		cache.put("user:2", "b");
+		cache.put("other:1", "c");
+
+		cache.invalidateIf(key -> key.startsWith("user:"));
+
+		assertThat(cache.get("user:1")).isNull();
+		assertThat(cache.get("user:2")).isNull();
+		assertThat(cache.get("other:1")).isEqualTo("c");
+	}
+}
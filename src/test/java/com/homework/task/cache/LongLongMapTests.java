@@ -0,0 +1,86 @@
+package com.homework.task.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LongLongMapTests {
+
+	@Test
+	void getReturnsStoredValueOrDefault() {
+		LongLongMap map = new LongLongMap(4);
+		map.put(7, 70);
+
+		assertThat(map.get(7, -1)).isEqualTo(70);
+		assertThat(map.get(8, -1)).isEqualTo(-1);
+
+		map.put(7, 71);
+
+		assertThat(map.get(7, -1)).isEqualTo(71);
+		assertThat(map.size()).isEqualTo(1);
+	}
+
+	@Test
+	void growsBeyondExpectedSize() {
+		LongLongMap map = new LongLongMap(4);
+		for (long key = 1; key <= 10_000; key++) {
+			map.put(key, key * 10);
+		}
+
+		assertThat(map.size()).isEqualTo(10_000);
+		for (long key = 1; key <= 10_000; key++) {
+			assertThat(map.get(key, -1)).isEqualTo(key * 10);
+		}
+	}
+
+	@Test
+	void removeKeepsOtherKeysReachable() {
+		LongLongMap map = new LongLongMap(16);
+		for (long key = 1; key <= 1000; key++) {
+			map.put(key, key);
+		}
+		for (long key = 2; key <= 1000; key += 2) {
+			map.remove(key);
+		}
+
+		assertThat(map.size()).isEqualTo(500);
+		for (long key = 1; key <= 1000; key++) {
+			assertThat(map.get(key, -1)).isEqualTo(key % 2 == 1 ? key : -1);
+		}
+
+		map.remove(2);
+		assertThat(map.size()).isEqualTo(500);
+	}
+
+	@Test
+	void putMaxNeverLowersValue() {
+		LongLongMap map = new LongLongMap(4);
+
+		assertThat(map.putMax(1, 5)).isEqualTo(5);
+		assertThat(map.putMax(1, 3)).isEqualTo(5);
+		assertThat(map.get(1, -1)).isEqualTo(5);
+		assertThat(map.putMax(1, 8)).isEqualTo(8);
+		assertThat(map.get(1, -1)).isEqualTo(8);
+	}
+
+	@Test
+	void clearRemovesAllEntries() {
+		LongLongMap map = new LongLongMap(4);
+		map.put(1, 1);
+		map.put(2, 2);
+
+		map.clear();
+
+		assertThat(map.size()).isZero();
+		assertThat(map.get(1, -1)).isEqualTo(-1);
+	}
+
+	@Test
+	void rejectsNonPositiveKeys() {
+		LongLongMap map = new LongLongMap(4);
+
+		assertThatThrownBy(() -> map.put(0, 1)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> map.putMax(-1, 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
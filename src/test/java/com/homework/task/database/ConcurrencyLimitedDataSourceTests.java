@@ -0,0 +1,39 @@
+package com.homework.task.database;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ConcurrencyLimitedDataSourceTests {
+
+	private final ConcurrencyLimitedDataSource dataSource =
+			new ConcurrencyLimitedDataSource(new DriverManagerDataSource("jdbc:h2:mem:limited"), 1, 100);
+
+	@Test
+	void closingConnectionReturnsPermitOnce() throws Exception {
+		Connection connection = dataSource.getConnection();
+		assertThat(dataSource.getAvailablePermits()).isZero();
+		assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+		connection.close();
+		connection.close();
+
+		assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+	}
+
+	@Test
+	void unwrappedConnectionStillReturnsPermit() throws Exception {
+		Connection connection = dataSource.getConnection();
+
+		Connection unwrapped = connection.unwrap(Connection.class);
+		assertThat(unwrapped).isSameAs(connection);
+		unwrapped.close();
+
+		assertThat(dataSource.getAvailablePermits()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,163 @@
+package com.homework.task.database.services;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileTokenStoreTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void replayRestoresRefreshTokens() throws Exception {
+		Path log = directory.resolve("tokens.log");
+		FileTokenStore store = new FileTokenStore(log, 1000);
+		store.saveRefreshToken("user", "refresh-1", 60);
+		store.saveRefreshToken("other", "refresh-2", 60);
+		store.close();
+
+		FileTokenStore replayed = new FileTokenStore(log, 1000);
+
+		assertThat(replayed.consumeRefreshToken("refresh-1")).isEqualTo(Optional.of("user"));
+		assertThat(replayed.consumeRefreshToken("refresh-2")).isEqualTo(Optional.of("other"));
+		replayed.close();
+	}
+
+	@Test
+	void replayKeepsRemovalsAndReplacements() throws Exception {
+		Path log = directory.resolve("tokens.log");
+		FileTokenStore store = new FileTokenStore(log, 1000);
+		store.saveRefreshToken("user", "refresh-1", 60);
+		store.saveRefreshToken("user", "refresh-2", 60);
+		store.saveRefreshToken("other", "refresh-3", 60);
+		store.consumeRefreshToken("refresh-3");
+		store.close();
+
+		FileTokenStore replayed = new FileTokenStore(log, 1000);
+
+		assertThat(replayed.consumeRefreshToken("refresh-1")).isEmpty();
+		assertThat(replayed.consumeRefreshToken("refresh-3")).isEmpty();
+		assertThat(replayed.consumeRefreshToken("refresh-2")).isEqualTo(Optional.of("user"));
+		replayed.close();
+	}
+
+	@Test
+	void replayStopsAtTornRecordAndTruncatesIt() throws Exception {
+		Path log = directory.resolve("tokens.log");
+		FileTokenStore store = new FileTokenStore(log, 1000);
+		store.saveRefreshToken("user", "refresh-1", 60);
+		store.close();
+		long completeSize = Files.size(log);
+
+		// A record header that announces more bytes than were written, as after a crash during an append
+		ByteBuffer torn = ByteBuffer.allocate(1 + 8 + 4 + 4 + 3)
+				.put((byte) 3)
+				.putLong(System.currentTimeMillis() + 60_000)
+				.putInt(5)
+				.putInt(64)
+				.put("use".getBytes(StandardCharsets.UTF_8));
+		Files.write(log, torn.array(), StandardOpenOption.APPEND);
+
+		FileTokenStore replayed = new FileTokenStore(log, 1000);
+
+		assertThat(Files.size(log)).isEqualTo(completeSize);
+		assertThat(replayed.consumeRefreshToken("refresh-1")).isEqualTo(Optional.of("user"));
+
+		// Records appended after the truncated tail are replayed again
+		replayed.saveRefreshToken("other", "refresh-2", 60);
+		replayed.close();
+		FileTokenStore again = new FileTokenStore(log, 1000);
+
+		assertThat(again.consumeRefreshToken("refresh-2")).isEqualTo(Optional.of("other"));
+		again.close();
+	}
+
+	@Test
+	void replayStopsAtCorruptHeader() throws Exception {
+		Path log = directory.resolve("tokens.log");
+		FileTokenStore store = new FileTokenStore(log, 1000);
+		store.saveRefreshToken("user", "refresh-1", 60);
+		store.close();
+		long completeSize = Files.size(log);
+
+		// Lengths whose sum overflows an int must not pass as a record that fits into the log
+		ByteBuffer corrupt = ByteBuffer.allocate(1 + 8 + 4 + 4 + 8)
+				.put((byte) 3)
+				.putLong(System.currentTimeMillis() + 60_000)
+				.putInt(Integer.MAX_VALUE)
+				.putInt(2)
+				.putLong(0);
+		Files.write(log, corrupt.array(), StandardOpenOption.APPEND);
+
+		FileTokenStore replayed = new FileTokenStore(log, 1000);
+
+		assertThat(Files.size(log)).isEqualTo(completeSize);
+		assertThat(replayed.consumeRefreshToken("refresh-1")).isEqualTo(Optional.of("user"));
+		replayed.close();
+	}
+
+	@Test
+	void replaySkipsExpiredRefreshTokens() throws Exception {
+		Path log = directory.resolve("tokens.log");
+		FileTokenStore store = new FileTokenStore(log, 1000);
+		store.saveRefreshToken("user", "refresh-1", 0);
+		store.close();
+
+		FileTokenStore replayed = new FileTokenStore(log, 1000);
+
+		assertThat(replayed.consumeRefreshToken("refresh-1")).isEmpty();
+		replayed.close();
+	}
+
+	@Test
+	void replayCompactsAwayLegacyAccessTokens() throws Exception {
+		Path log = directory.resolve("tokens.log");
+		byte[] username = "user".getBytes(StandardCharsets.UTF_8);
+		byte[] accessToken = "plaintext.access.token".getBytes(StandardCharsets.UTF_8);
+		ByteBuffer legacy = ByteBuffer.allocate(1 + 8 + 4 + 4 + username.length + accessToken.length)
+				.put((byte) 1)
+				.putLong(System.currentTimeMillis() + 60_000)
+				.putInt(username.length)
+				.putInt(accessToken.length)
+				.put(username)
+				.put(accessToken);
+		Files.write(log, legacy.array());
+
+		FileTokenStore store = new FileTokenStore(log, 1000);
+		store.saveRefreshToken("user", "refresh-1", 60);
+		store.close();
+
+		assertThat(new String(Files.readAllBytes(log), StandardCharsets.UTF_8)).doesNotContain("plaintext.access.token");
+		FileTokenStore replayed = new FileTokenStore(log, 1000);
+		assertThat(replayed.consumeRefreshToken("refresh-1")).isEqualTo(Optional.of("user"));
+		replayed.close();
+	}
+
+	@Test
+	void compactionKeepsOnlyLiveRefreshTokens() throws Exception {
+		Path log = directory.resolve("tokens.log");
+		FileTokenStore store = new FileTokenStore(log, 10);
+		for (int i = 0; i < 50; i++) {
+			store.saveRefreshToken("user", "refresh-" + i, 60);
+		}
+		long sizeBeforeCompaction = Files.size(log);
+
+		store.purgeExpired();
+		store.close();
+
+		assertThat(Files.size(log)).isLessThan(sizeBeforeCompaction);
+		FileTokenStore replayed = new FileTokenStore(log, 10);
+		assertThat(replayed.consumeRefreshToken("refresh-48")).isEmpty();
+		assertThat(replayed.consumeRefreshToken("refresh-49")).isEqualTo(Optional.of("user"));
+		replayed.close();
+	}
+}
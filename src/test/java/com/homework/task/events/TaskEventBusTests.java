@@ -0,0 +1,204 @@
+package com.homework.task.events;
+
+import com.homework.task.database.templates.Task;
+import com.homework.task.database.templates.TaskEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TaskEventBusTests {
+
+	private TaskEventBus bus;
+
+	@AfterEach
+	void shutdown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		if (bus != null) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(bus);
+			bus.shutdown();
+		}
+	}
+
+	private static Task task(long id) {
+		return new Task(id, "Task " + id, "Task " + id + " desc", Task.Status.ACTIVE);
+	}
+
+	private static TaskEvent next(BlockingQueue<TaskEvent> events) throws InterruptedException {
+		return events.poll(5, TimeUnit.SECONDS);
+	}
+
+	private static void completeTransaction(int status) {
+		try {
+			TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCompletion(status));
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void subscriptionStartsWithResyncAndDeliversInOrder() throws Exception {
+		bus = new TaskEventBus(16, 4);
+		BlockingQueue<TaskEvent> events = new LinkedBlockingQueue<>();
+		assertThat(bus.subscribe("user", events::add)).isNotNull();
+
+		bus.publish("user", TaskEvent.created(task(1)));
+		bus.publish("user", TaskEvent.statusChanged(1, Task.Status.INACTIVE));
+		bus.publish("other", TaskEvent.created(task(2)));
+
+		assertThat(next(events).type()).isEqualTo(TaskEvent.Type.RESYNC);
+		TaskEvent created = next(events);
+		assertThat(created.type()).isEqualTo(TaskEvent.Type.CREATED);
+		assertThat(created.task().getId()).isEqualTo(1);
+		TaskEvent statusChanged = next(events);
+		assertThat(statusChanged.type()).isEqualTo(TaskEvent.Type.STATUS_CHANGED);
+		assertThat(statusChanged.task().getStatus()).isEqualTo(Task.Status.INACTIVE);
+		assertThat(events.poll(100, TimeUnit.MILLISECONDS)).isNull();
+	}
+
+	@Test
+	void eventsAreHeldBackUntilCommit() throws Exception {
+		bus = new TaskEventBus(16, 4);
+		BlockingQueue<TaskEvent> events = new LinkedBlockingQueue<>();
+		bus.subscribe("user", events::add);
+		assertThat(next(events).type()).isEqualTo(TaskEvent.Type.RESYNC);
+
+		TransactionSynchronizationManager.initSynchronization();
+		bus.publish("user", TaskEvent.created(task(1)));
+
+		assertThat(events.poll(200, TimeUnit.MILLISECONDS)).isNull();
+
+		completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+		assertThat(next(events).type()).isEqualTo(TaskEvent.Type.CREATED);
+	}
+
+	@Test
+	void eventsAreDiscardedOnRollback() throws Exception {
+		bus = new TaskEventBus(16, 4);
+		BlockingQueue<TaskEvent> events = new LinkedBlockingQueue<>();
+		bus.subscribe("user", events::add);
+		assertThat(next(events).type()).isEqualTo(TaskEvent.Type.RESYNC);
+
+		TransactionSynchronizationManager.initSynchronization();
+		bus.publish("user", TaskEvent.created(task(1)));
+		completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		assertThat(events.poll(200, TimeUnit.MILLISECONDS)).isNull();
+		assertThat(TransactionSynchronizationManager.hasResource(bus)).isFalse();
+	}
+
+	@Test
+	void largeTransactionIsCollapsedIntoResync() throws Exception {
+		bus = new TaskEventBus(4, 4);
+		BlockingQueue<TaskEvent> events = new LinkedBlockingQueue<>();
+		bus.subscribe("user", events::add);
+		assertThat(next(events).type()).isEqualTo(TaskEvent.Type.RESYNC);
+
+		TransactionSynchronizationManager.initSynchronization();
+		for (int i = 1; i <= 10; i++) {
+			bus.publish("user", TaskEvent.created(task(i)));
+		}
+		completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+		assertThat(next(events).type()).isEqualTo(TaskEvent.Type.RESYNC);
+		assertThat(events.poll(200, TimeUnit.MILLISECONDS)).isNull();
+	}
+
+	@Test
+	void overflowDropsPendingEventsAndResyncs() throws Exception {
+		bus = new TaskEventBus(2, 4);
+		BlockingQueue<TaskEvent> events = new LinkedBlockingQueue<>();
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		bus.subscribe("user", event -> {
+			events.add(event);
+			blocked.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+		// Two events fit into the queue, the third one overflows it and the last two are queued again
+		for (int i = 1; i <= 5; i++) {
+			bus.publish("user", TaskEvent.created(task(i)));
+		}
+		release.countDown();
+
+		assertThat(next(events).type()).isEqualTo(TaskEvent.Type.RESYNC);
+		assertThat(next(events).type()).isEqualTo(TaskEvent.Type.RESYNC);
+		assertThat(next(events).task().getId()).isEqualTo(4);
+		assertThat(next(events).task().getId()).isEqualTo(5);
+		assertThat(bus.getDroppedEvents()).isEqualTo(3);
+	}
+
+	@Test
+	void blockedSubscriptionDoesNotHoldUpOthers() throws Exception {
+		bus = new TaskEventBus(16, 4);
+		CountDownLatch blocked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		bus.subscribe("user", event -> {
+			blocked.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+		// The first subscription is stuck in its listener, as in a blocking write to a stalled client
+		BlockingQueue<TaskEvent> sameUser = new LinkedBlockingQueue<>();
+		BlockingQueue<TaskEvent> otherUser = new LinkedBlockingQueue<>();
+		bus.subscribe("user", sameUser::add);
+		bus.subscribe("other", otherUser::add);
+		assertThat(next(sameUser).type()).isEqualTo(TaskEvent.Type.RESYNC);
+		assertThat(next(otherUser).type()).isEqualTo(TaskEvent.Type.RESYNC);
+
+		bus.publish("user", TaskEvent.created(task(1)));
+		bus.publish("other", TaskEvent.created(task(2)));
+
+		assertThat(next(sameUser).task().getId()).isEqualTo(1);
+		assertThat(next(otherUser).task().getId()).isEqualTo(2);
+		release.countDown();
+	}
+
+	@Test
+	void subscribersPerUserAreLimited() {
+		bus = new TaskEventBus(16, 2);
+		TaskEventBus.Subscription first = bus.subscribe("user", event -> {});
+		assertThat(bus.subscribe("user", event -> {})).isNotNull();
+
+		assertThat(bus.subscribe("user", event -> {})).isNull();
+		assertThat(bus.subscribe("other", event -> {})).isNotNull();
+
+		first.cancel();
+		assertThat(bus.subscribe("user", event -> {})).isNotNull();
+	}
+
+	@Test
+	void cancelledSubscriptionReceivesNothing() throws Exception {
+		bus = new TaskEventBus(16, 4);
+		BlockingQueue<TaskEvent> events = new LinkedBlockingQueue<>();
+		TaskEventBus.Subscription subscription = bus.subscribe("user", events::add);
+		assertThat(next(events).type()).isEqualTo(TaskEvent.Type.RESYNC);
+
+		subscription.cancel();
+		bus.publish("user", TaskEvent.created(task(1)));
+
+		assertThat(events.poll(200, TimeUnit.MILLISECONDS)).isNull();
+		assertThat(bus.hasSubscribers("user")).isFalse();
+	}
+}
@@ -0,0 +1,88 @@
+package com.homework.task.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenBucketRateLimiterTests {
+
+	@Test
+	void allowsBurstUpToCapacity() {
+		TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, 1, 16);
+
+		assertThat(limiter.tryAcquire("client")).isZero();
+		assertThat(limiter.tryAcquire("client")).isZero();
+		assertThat(limiter.tryAcquire("client")).isZero();
+		assertThat(limiter.tryAcquire("client")).isPositive();
+		assertThat(limiter.tryAcquire("other")).isZero();
+	}
+
+	@Test
+	void reportsWaitOfOneEmissionInterval() {
+		TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 16);
+		limiter.tryAcquire("client");
+
+		long wait = limiter.tryAcquire("client");
+
+		assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.MINUTES.toNanos(1));
+		assertThat(limiter.waitTime("client")).isPositive().isLessThanOrEqualTo(wait);
+		assertThat(limiter.waitTime("unknown")).isZero();
+	}
+
+	@Test
+	void refillsAfterEmissionInterval() throws InterruptedException {
+		// One permit every 100 ms
+		TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, 600, 16);
+		limiter.tryAcquire("client");
+		limiter.tryAcquire("client");
+
+		long wait = limiter.tryAcquire("client");
+		assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+		TimeUnit.NANOSECONDS.sleep(wait);
+
+		assertThat(limiter.tryAcquire("client")).isZero();
+		assertThat(limiter.tryAcquire("client")).isPositive();
+	}
+
+	@Test
+	void rejectedAttemptsDoNotConsumePermits() throws InterruptedException {
+		TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 600, 16);
+		limiter.tryAcquire("client");
+		long wait = limiter.tryAcquire("client");
+		for (int i = 0; i < 100; i++) {
+			limiter.tryAcquire("client");
+		}
+
+		TimeUnit.NANOSECONDS.sleep(wait);
+
+		assertThat(limiter.tryAcquire("client")).isZero();
+	}
+
+	@Test
+	void evictIdleDropsFullBuckets() throws InterruptedException {
+		TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 600, 16);
+		limiter.tryAcquire("client");
+		assertThat(limiter.size()).isEqualTo(1);
+
+		limiter.evictIdle();
+		assertThat(limiter.size()).isEqualTo(1);
+
+		TimeUnit.NANOSECONDS.sleep(limiter.tryAcquire("client"));
+		limiter.evictIdle();
+
+		assertThat(limiter.size()).isZero();
+	}
+
+	@Test
+	void tracksAtMostMaxKeys() {
+		TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 16);
+		for (int i = 0; i < 100; i++) {
+			limiter.tryAcquire("client-" + i);
+		}
+
+		assertThat(limiter.size()).isLessThanOrEqualTo(16);
+	}
+}